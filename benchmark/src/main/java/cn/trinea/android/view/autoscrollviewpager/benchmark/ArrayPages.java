@@ -0,0 +1,152 @@
+package cn.trinea.android.view.autoscrollviewpager.benchmark;
+
+import java.util.Arrays;
+
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+import cn.trinea.android.view.autoscrollviewpager.core.PageOffsets;
+import cn.trinea.android.view.autoscrollviewpager.core.PopulateWindow;
+
+/**
+ * Instantiated pages of loop mode as two sorted arrays, positions and offsets, for the populate walk and the offsets
+ * of the core, the code LoopCompatibleViewPager runs over ViewPager's items.
+ * <p>
+ * Every page has width factor 1, the client width is positive and there is no padding, so the left walk needs one
+ * page width and the right walk two, as in the pager. Width sums go through the prefix sums of one cycle, the path of
+ * adapters with custom page widths. Adding and destroying a page only moves array entries.
+ */
+final class ArrayPages implements PopulateWindow.Pages, PageOffsets.PageWidths {
+
+    private final int     realCount;
+    private final int     virtualCount;
+    private final int     pageLimit;
+    private final float   marginOffset;
+    private final float[] widthPrefix;
+    private final float[] firstLastOffsets = new float[2];
+
+    private int[]         positions        = new int[16];
+    private float[]       offsets          = new float[16];
+    private int           size;
+    private int           currentItem;
+
+    /** pages added and destroyed, read back so the walks are not optimised away **/
+    long                  added;
+    long                  destroyed;
+
+    ArrayPages(int realCount, int virtualCount, int pageLimit, float marginOffset) {
+        this.realCount = realCount;
+        this.virtualCount = virtualCount;
+        this.pageLimit = pageLimit;
+        this.marginOffset = marginOffset;
+        float[] realWidths = new float[realCount];
+        Arrays.fill(realWidths, 1f);
+        this.widthPrefix = PageOffsets.prefixSums(realWidths);
+        this.currentItem = LoopPositions.centerPosition(virtualCount, realCount);
+        populate(currentItem);
+    }
+
+    int getCurrentItem() {
+        return currentItem;
+    }
+
+    /**
+     * as LoopCompatibleViewPager#populate(int) in loop mode, without the adapter calls
+     */
+    void populate(int newCurrentItem) {
+        int oldCurPosition = -1;
+        float oldCurOffset = 0;
+        if (currentItem != newCurrentItem) {
+            final int oldCurIndex = indexOf(currentItem);
+            if (oldCurIndex >= 0) {
+                oldCurPosition = currentItem;
+                oldCurOffset = offsets[oldCurIndex];
+            }
+            currentItem = newCurrentItem;
+        }
+        final int startPos = PopulateWindow.startPosition(currentItem, pageLimit);
+        final int endPos = PopulateWindow.endPosition(currentItem, pageLimit, virtualCount);
+        int curIndex = PopulateWindow.addCurrent(this, currentItem, virtualCount);
+        curIndex = PopulateWindow.fill(this, curIndex, virtualCount, startPos, endPos, 1.f, 2.f);
+        PageOffsets.calculate(this, this, curIndex, oldCurPosition, oldCurOffset, 1.f, virtualCount, marginOffset,
+                firstLastOffsets);
+    }
+
+    /**
+     * as LoopCompatibleViewPager#recenterIfNeeded, shift positions and offsets back to the centre cycle
+     */
+    void recenterIfNeeded() {
+        int target = LoopPositions.recenterPosition(currentItem, virtualCount, realCount, pageLimit + 1);
+        int curIndex = indexOf(currentItem);
+        if (target == currentItem || curIndex < 0) {
+            return;
+        }
+        int delta = target - currentItem;
+        float offsetDelta = offsets[curIndex];
+        for (int i = 0; i < size; i++) {
+            positions[i] += delta;
+            offsets[i] -= offsetDelta;
+        }
+        currentItem = target;
+    }
+
+    @Override
+    public float getPageWidthSum(int fromPosition, int toPosition) {
+        return PageOffsets.cyclicWidthSum(widthPrefix, fromPosition, toPosition);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public int getPosition(int index) {
+        return positions[index];
+    }
+
+    @Override
+    public float getWidthFactor(int index) {
+        return 1f;
+    }
+
+    @Override
+    public boolean isScrolling(int index) {
+        return false;
+    }
+
+    @Override
+    public float getOffset(int index) {
+        return offsets[index];
+    }
+
+    @Override
+    public void setOffset(int index, float offset) {
+        offsets[index] = offset;
+    }
+
+    @Override
+    public int indexOf(int position) {
+        return Arrays.binarySearch(positions, 0, size, position);
+    }
+
+    @Override
+    public void add(int position, int index) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2);
+        }
+        System.arraycopy(positions, index, positions, index + 1, size - index);
+        System.arraycopy(offsets, index, offsets, index + 1, size - index);
+        positions[index] = position;
+        offsets[index] = 0;
+        size++;
+        added++;
+    }
+
+    @Override
+    public void destroy(int index) {
+        System.arraycopy(positions, index + 1, positions, index, size - index - 1);
+        System.arraycopy(offsets, index + 1, offsets, index, size - index - 1);
+        size--;
+        destroyed++;
+    }
+}
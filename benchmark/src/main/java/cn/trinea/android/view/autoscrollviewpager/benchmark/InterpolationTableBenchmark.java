@@ -0,0 +1,82 @@
+package cn.trinea.android.view.autoscrollviewpager.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.trinea.android.view.autoscrollviewpager.core.InterpolationTable;
+
+/**
+ * One interpolation per scroller frame: ViewPager's quintic curve, Scroller's viscous fluid curve with its
+ * exponentials, and the lookup table AutoScrollViewPager#setScrollInterpolator puts in front of custom curves
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InterpolationTableBenchmark {
+
+    private static final float VISCOUS_FLUID_SCALE = 8f;
+
+    InterpolationTable         table;
+    float                      viscousFluidNormalize;
+    float                      input;
+
+    @Setup
+    public void setUp() {
+        viscousFluidNormalize = 1f;
+        viscousFluidNormalize = 1f / viscousFluid(1f);
+        float[] samples = new float[InterpolationTable.DEFAULT_SAMPLE_COUNT];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = viscousFluid((float)i / (samples.length - 1));
+        }
+        table = new InterpolationTable(samples);
+    }
+
+    private float nextInput() {
+        input += 0.013f;
+        if (input > 1f) {
+            input -= 1f;
+        }
+        return input;
+    }
+
+    @Benchmark
+    public float quintic() {
+        float t = nextInput() - 1f;
+        return t * t * t * t * t + 1f;
+    }
+
+    @Benchmark
+    public float viscousFluid() {
+        return viscousFluid(nextInput());
+    }
+
+    @Benchmark
+    public float table() {
+        return table.get(nextInput());
+    }
+
+    private float viscousFluid(float x) {
+        x *= VISCOUS_FLUID_SCALE;
+        if (x < 1f) {
+            x -= (1f - (float)Math.exp(-x));
+        } else {
+            float start = 0.36787944117f;
+            x = 1f - (float)Math.exp(1f - x);
+            x = start + x * (1f - start);
+        }
+        return x * viscousFluidNormalize;
+    }
+}
@@ -0,0 +1,57 @@
+package cn.trinea.android.view.autoscrollviewpager.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+
+/**
+ * Modulo mapping and centre computation used by InfiniteLoopPagerAdapter and LoopCompatibleViewPager for every
+ * instantiate, destroy, page change callback and setCurrentItem.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopPositionsBenchmark {
+
+    @Param({"1", "5", "100", "10000"})
+    int realCount;
+
+    int virtualCount;
+    int position;
+
+    @Setup
+    public void setUp() {
+        virtualCount = LoopPositions.virtualCount(realCount);
+        position = LoopPositions.centerPosition(virtualCount, realCount) + realCount / 2;
+    }
+
+    @Benchmark
+    public int toRealPosition() {
+        return LoopPositions.toRealPosition(position++, realCount);
+    }
+
+    @Benchmark
+    public int centerPosition() {
+        return LoopPositions.centerPosition(virtualCount, realCount);
+    }
+
+    @Benchmark
+    public int toVirtualPosition() {
+        return LoopPositions.toVirtualPosition(realCount - 1, virtualCount, realCount);
+    }
+}
@@ -0,0 +1,71 @@
+package cn.trinea.android.view.autoscrollviewpager.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+
+/**
+ * One populate pass of loop mode, the window walk of PopulateWindow plus the page offsets of PageOffsets, the code
+ * LoopCompatibleViewPager runs, over the pages of {@link ArrayPages}
+ * <ul>
+ * <li>{@link #step()} is one auto scroll advance, one page added and one destroyed</li>
+ * <li>{@link #jump()} is setCurrentItem to the opposite side of the data set, the whole window is rebuilt</li>
+ * <li>{@link #settled()} is a populate with nothing to do, e.g. after layout</li>
+ * </ul>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulateWindowBenchmark {
+
+    @Param({"1", "5", "100", "10000"})
+    int           realCount;
+
+    @Param({"1", "2", "3"})
+    int           offscreenPageLimit;
+
+    ArrayPages    pages;
+    int           center;
+
+    @Setup
+    public void setUp() {
+        pages = new ArrayPages(realCount, LoopPositions.virtualCount(realCount), offscreenPageLimit, 0.05f);
+        center = pages.getCurrentItem();
+    }
+
+    @Benchmark
+    public long step() {
+        pages.populate(pages.getCurrentItem() + 1);
+        pages.recenterIfNeeded();
+        return pages.added;
+    }
+
+    @Benchmark
+    public long jump() {
+        int next = pages.getCurrentItem() == center ? center + Math.max(1, realCount / 2) : center;
+        // the jump target stays inside the virtual range, no recenter needed
+        pages.populate(next);
+        return pages.added;
+    }
+
+    @Benchmark
+    public long settled() {
+        pages.populate(pages.getCurrentItem());
+        return pages.destroyed;
+    }
+}
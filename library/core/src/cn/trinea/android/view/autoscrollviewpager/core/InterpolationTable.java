@@ -0,0 +1,41 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+/**
+ * An interpolation curve sampled at evenly spaced inputs in [0, 1], evaluated by linear interpolation between the two
+ * nearest samples, so a lookup costs one multiply and two array reads whatever the curve is
+ */
+public final class InterpolationTable {
+
+    /** samples of the default table, the error for ViewPager's quintic curve stays below 1e-4 **/
+    public static final int DEFAULT_SAMPLE_COUNT = 257;
+
+    private final float[]   samples;
+    private final int       lastIndex;
+
+    /**
+     * @param samples value of the curve at i / (samples.length - 1), at least two
+     */
+    public InterpolationTable(float[] samples) {
+        if (samples == null || samples.length < 2) {
+            throw new IllegalArgumentException("at least two samples are needed");
+        }
+        this.samples = samples;
+        this.lastIndex = samples.length - 1;
+    }
+
+    /**
+     * @param input in [0, 1], values outside are clamped
+     */
+    public float get(float input) {
+        if (input <= 0) {
+            return samples[0];
+        }
+        if (input >= 1) {
+            return samples[lastIndex];
+        }
+        final float position = input * lastIndex;
+        final int index = (int)position;
+        final float fraction = position - index;
+        return samples[index] + (samples[index + 1] - samples[index]) * fraction;
+    }
+}
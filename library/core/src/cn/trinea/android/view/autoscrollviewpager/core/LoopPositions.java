@@ -0,0 +1,125 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+/**
+ * Position arithmetic of the infinite loop mode, plain Java so it can run and be benchmarked without Android
+ * <ul>
+ * <li>virtual position, the position the ViewPager works with, in [0, virtual count)</li>
+ * <li>real position, the position of the wrapped adapter, in [0, real count)</li>
+ * </ul>
+ */
+public final class LoopPositions {
+
+    /** the virtual range holds at least this many cycles of the real items **/
+    public static final int MIN_CYCLES        = 4;
+    /** the virtual range holds at least this many positions, so a handful of real items still have room to scroll **/
+    public static final int MIN_VIRTUAL_COUNT = 32;
+
+    private LoopPositions() {
+    }
+
+    /**
+     * virtual count exposed by the loop adapter, a few whole cycles of the real items. Keeping it small keeps page
+     * offsets and scroll values small, the pager is moved back to the centre by {@link #recenterPosition(int, int, int,
+     * int)} before it gets close to either end.
+     * 
+     * @param realCount count of the wrapped adapter
+     * @return 0 if realCount is not positive
+     */
+    public static int virtualCount(int realCount) {
+        if (realCount <= 0) {
+            return 0;
+        }
+        int cycles = Math.max(MIN_CYCLES, (MIN_VIRTUAL_COUNT + realCount - 1) / realCount);
+        return (int)Math.min(Integer.MAX_VALUE, (long)realCount * cycles);
+    }
+
+    /**
+     * virtual count of whole cycles for a pager that keeps no state per position and so never has to move back to
+     * the centre, the largest multiple of realCount not above maxCount
+     * 
+     * @param realCount count of the wrapped adapter
+     * @param maxCount upper bound of the virtual range
+     * @return 0 if realCount is not positive
+     */
+    public static int wholeCycles(int realCount, int maxCount) {
+        if (realCount <= 0) {
+            return 0;
+        }
+        return realCount > maxCount ? realCount : maxCount - maxCount % realCount;
+    }
+
+    /**
+     * position to move a virtual position to when it is less than one cycle plus margin away from either end of the
+     * virtual range, the same real item in the cycle closest to the middle. The new position is only that far from
+     * both ends when the virtual range holds about three cycles plus twice the margin, which {@link
+     * #virtualCount(int)} does not promise for margins over half a cycle; the caller gets the most room there is.
+     * 
+     * @param virtualPosition
+     * @param virtualCount
+     * @param realCount count of the wrapped adapter
+     * @param margin extra positions to keep free at both ends, e.g. offscreen page limit plus one
+     * @return virtualPosition itself if it is far enough from both ends
+     */
+    public static int recenterPosition(int virtualPosition, int virtualCount, int realCount, int margin) {
+        if (realCount <= 0) {
+            return virtualPosition;
+        }
+        long edge = (long)realCount + margin;
+        if (virtualPosition >= edge && virtualPosition < virtualCount - edge) {
+            return virtualPosition;
+        }
+        return centerPosition(virtualCount, realCount) + toRealPosition(virtualPosition, realCount);
+    }
+
+    /**
+     * map a virtual position to the position of the wrapped adapter
+     * 
+     * @param virtualPosition
+     * @param realCount count of the wrapped adapter
+     * @return virtualPosition itself if realCount is not positive
+     */
+    public static int toRealPosition(int virtualPosition, int realCount) {
+        return realCount <= 0 ? virtualPosition : virtualPosition % realCount;
+    }
+
+    /**
+     * real position to show after the wrapped adapter changed without telling which items moved, the real position
+     * virtualPosition had before the change, clamped to the new count
+     * 
+     * @param virtualPosition
+     * @param oldRealCount count of the wrapped adapter virtualPosition was mapped with
+     * @param newRealCount count of the wrapped adapter after the change
+     * @return -1 if newRealCount is not positive
+     */
+    public static int keepRealPosition(int virtualPosition, int oldRealCount, int newRealCount) {
+        if (newRealCount <= 0) {
+            return -1;
+        }
+        return oldRealCount <= 0 ? 0 : Math.min(toRealPosition(virtualPosition, oldRealCount), newRealCount - 1);
+    }
+
+    /**
+     * the virtual position of real position 0 closest to the middle of the virtual range
+     * 
+     * @param virtualCount
+     * @param realCount count of the wrapped adapter
+     * @return
+     */
+    public static int centerPosition(int virtualCount, int realCount) {
+        int half = virtualCount / 2;
+        return realCount <= 0 ? half : half - half % realCount;
+    }
+
+    /**
+     * map an item passed to setCurrentItem to a virtual position, items smaller than realCount are real positions and
+     * are moved to the centre cycle, others are already virtual
+     * 
+     * @param item
+     * @param virtualCount
+     * @param realCount
+     * @return
+     */
+    public static int toVirtualPosition(int item, int virtualCount, int realCount) {
+        return item < realCount ? centerPosition(virtualCount, realCount) + item : item;
+    }
+}
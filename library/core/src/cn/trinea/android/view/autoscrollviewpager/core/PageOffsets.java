@@ -0,0 +1,182 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+/**
+ * Offset arithmetic of LoopCompatibleViewPager#calculatePageOffsets, see {@link #calculate(PopulateWindow.Pages,
+ * PageWidths, int, int, float, float, int, float, float[])}. Offsets are in units of the client width, a page of width
+ * factor 1 followed by a margin moves the next page by 1 + marginOffset.
+ */
+public final class PageOffsets {
+
+    /**
+     * width factor source, implemented by pager adapters from their getPageWidth(int)
+     */
+    public interface PageWidths {
+
+        /**
+         * @param fromPosition inclusive virtual position
+         * @param toPosition exclusive virtual position, greater than fromPosition
+         * @return sum of the width factors of the pages in [fromPosition, toPosition), implementations should not
+         *         walk the range, see {@link PageOffsets#cyclicWidthSum(float[], int, int)}
+         */
+        float getPageWidthSum(int fromPosition, int toPosition);
+    }
+
+    private PageOffsets() {
+    }
+
+    /**
+     * total space taken by the pages in [fromPosition, toPosition), each followed by its margin
+     * 
+     * @param widths
+     * @param fromPosition inclusive
+     * @param toPosition exclusive
+     * @param marginOffset page margin divided by the client width
+     * @return 0 if toPosition is not greater than fromPosition
+     */
+    public static float span(PageWidths widths, int fromPosition, int toPosition, float marginOffset) {
+        if (toPosition <= fromPosition) {
+            return 0;
+        }
+        return widths.getPageWidthSum(fromPosition, toPosition) + (toPosition - fromPosition) * marginOffset;
+    }
+
+    /**
+     * Lay out the offsets of the instantiated pages around the current one, as ViewPager#calculatePageOffsets does.
+     * When the current item changed, the pages between the old and the new current page are first placed from the old
+     * one, so the new current page keeps its place relative to what is on screen. Gaps between pages are spanned by
+     * {@link #span(PageWidths, int, int, float)}.
+     * 
+     * @param curIndex index of the current page
+     * @param oldCurPosition position of the old current page, -1 if the current item did not change
+     * @param oldCurOffset offset of the old current page
+     * @param oldCurWidthFactor width factor of the old current page
+     * @param count count of the adapter
+     * @param marginOffset page margin divided by the client width
+     * @param outOffsets receives the first offset at 0 and the last offset at 1, see {@link #firstOffset(int, float)}
+     *        and {@link #lastOffset(int, float, float, int)}
+     */
+    public static void calculate(PopulateWindow.Pages pages, PageWidths widths, int curIndex, int oldCurPosition,
+            float oldCurOffset, float oldCurWidthFactor, int count, float marginOffset, float[] outOffsets) {
+        final int size = pages.size();
+        final int curPosition = pages.getPosition(curIndex);
+        if (oldCurPosition >= 0 && oldCurPosition < curPosition) {
+            int itemIndex = 0;
+            float offset = oldCurOffset + oldCurWidthFactor + marginOffset;
+            for (int pos = oldCurPosition + 1; pos <= curPosition && itemIndex < size; pos++) {
+                while (pos > pages.getPosition(itemIndex) && itemIndex < size - 1) {
+                    itemIndex++;
+                }
+                final int position = pages.getPosition(itemIndex);
+                if (pos < position) {
+                    // no page instantiated in between, the adapter tells how wide the gap is
+                    offset += span(widths, pos, position, marginOffset);
+                    pos = position;
+                }
+                pages.setOffset(itemIndex, offset);
+                offset += pages.getWidthFactor(itemIndex) + marginOffset;
+            }
+        } else if (oldCurPosition > curPosition) {
+            int itemIndex = size - 1;
+            float offset = oldCurOffset;
+            for (int pos = oldCurPosition - 1; pos >= curPosition && itemIndex >= 0; pos--) {
+                while (pos < pages.getPosition(itemIndex) && itemIndex > 0) {
+                    itemIndex--;
+                }
+                final int position = pages.getPosition(itemIndex);
+                if (pos > position) {
+                    offset -= span(widths, position + 1, pos + 1, marginOffset);
+                    pos = position;
+                }
+                offset -= pages.getWidthFactor(itemIndex) + marginOffset;
+                pages.setOffset(itemIndex, offset);
+            }
+        }
+
+        // base all offsets off the current page
+        final float curOffset = pages.getOffset(curIndex);
+        final float curWidthFactor = pages.getWidthFactor(curIndex);
+        float firstOffset = firstOffset(curPosition, curOffset);
+        float lastOffset = lastOffset(curPosition, curOffset, curWidthFactor, count);
+        float offset = curOffset;
+        int pos = curPosition - 1;
+        for (int i = curIndex - 1; i >= 0; i--, pos--) {
+            final int position = pages.getPosition(i);
+            if (pos > position) {
+                offset -= span(widths, position + 1, pos + 1, marginOffset);
+                pos = position;
+            }
+            offset -= pages.getWidthFactor(i) + marginOffset;
+            pages.setOffset(i, offset);
+            if (position == 0) {
+                firstOffset = offset;
+            }
+        }
+        offset = curOffset + curWidthFactor + marginOffset;
+        pos = curPosition + 1;
+        for (int i = curIndex + 1; i < size; i++, pos++) {
+            final int position = pages.getPosition(i);
+            if (pos < position) {
+                offset += span(widths, pos, position, marginOffset);
+                pos = position;
+            }
+            final float widthFactor = pages.getWidthFactor(i);
+            if (position == count - 1) {
+                lastOffset = offset + widthFactor - 1;
+            }
+            pages.setOffset(i, offset);
+            offset += widthFactor + marginOffset;
+        }
+        outOffsets[0] = firstOffset;
+        outOffsets[1] = lastOffset;
+    }
+
+    /**
+     * prefix sums of the width factors of one cycle of real pages
+     * 
+     * @param realWidths width factor of each real position
+     * @return array of realWidths.length + 1 entries, entry i is the sum of the first i widths
+     */
+    public static float[] prefixSums(float[] realWidths) {
+        float[] prefix = new float[realWidths.length + 1];
+        for (int i = 0; i < realWidths.length; i++) {
+            prefix[i + 1] = prefix[i] + realWidths[i];
+        }
+        return prefix;
+    }
+
+    /**
+     * sum of the width factors of the virtual pages in [fromPosition, toPosition) when the widths repeat every cycle
+     * of real pages, in constant time
+     * 
+     * @param prefix result of {@link #prefixSums(float[])}, with at least one real page
+     * @param fromPosition inclusive, not negative
+     * @param toPosition exclusive, not less than fromPosition
+     */
+    public static float cyclicWidthSum(float[] prefix, int fromPosition, int toPosition) {
+        final int realCount = prefix.length - 1;
+        final int cycles = toPosition / realCount - fromPosition / realCount;
+        return cycles * prefix[realCount] + prefix[toPosition % realCount] - prefix[fromPosition % realCount];
+    }
+
+    /**
+     * first offset, -Float.MAX_VALUE means the pager may scroll further left
+     * 
+     * @param position position of the page the offset belongs to
+     * @param offset offset of that page
+     */
+    public static float firstOffset(int position, float offset) {
+        return position == 0 ? offset : -Float.MAX_VALUE;
+    }
+
+    /**
+     * last offset, Float.MAX_VALUE means the pager may scroll further right
+     * 
+     * @param position position of the page the offset belongs to
+     * @param offset offset of that page
+     * @param widthFactor width factor of that page
+     * @param count virtual count
+     */
+    public static float lastOffset(int position, float offset, float widthFactor, int count) {
+        return position == count - 1 ? offset + widthFactor - 1 : Float.MAX_VALUE;
+    }
+}
@@ -0,0 +1,213 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+/**
+ * Bounds of the window LoopCompatibleViewPager#populate keeps pages for
+ * <ul>
+ * <li>pages in [{@link #startPosition(int, int)}, {@link #endPosition(int, int, int)}] are kept or added, more if
+ * they are needed to fill the width</li>
+ * <li>once a walk has passed the window it destroys the pages left on that side and stops, so a pass visits the
+ * window plus the instantiated pages, however large the virtual range is</li>
+ * <li>with a byte limit, {@link #sideLimits(int, int, int, int, PageSizes, int, int[])} narrows each side of the
+ * window to the pages that fit</li>
+ * <li>the walk itself, {@link #addCurrent(Pages, int, int)} and {@link #fill(Pages, int, int, int, int, float,
+ * float)}, works on {@link Pages}, the instantiated pages of the pager</li>
+ * </ul>
+ */
+public final class PopulateWindow {
+
+    private PopulateWindow() {
+    }
+
+    /**
+     * first position that is kept on the left of currentItem
+     */
+    public static int startPosition(int currentItem, int pageLimit) {
+        return Math.max(0, currentItem - pageLimit);
+    }
+
+    /**
+     * last position that is kept on the right of currentItem
+     */
+    public static int endPosition(int currentItem, int pageLimit, int count) {
+        return Math.min(count - 1, currentItem + pageLimit);
+    }
+
+    /**
+     * Instantiated pages of a pager, sorted by position, e.g. ViewPager's items
+     */
+    public interface Pages {
+
+        int size();
+
+        int getPosition(int index);
+
+        float getWidthFactor(int index);
+
+        /**
+         * @return whether the page at index is still scrolled to, such a page is never destroyed by a walk
+         */
+        boolean isScrolling(int index);
+
+        float getOffset(int index);
+
+        void setOffset(int index, float offset);
+
+        /**
+         * @return index of the page at position, -(insertion index) - 1 if there is none
+         */
+        int indexOf(int position);
+
+        /**
+         * instantiate the page at position and insert it at index
+         */
+        void add(int position, int index);
+
+        /**
+         * destroy the page at index and remove it
+         */
+        void destroy(int index);
+    }
+
+    /**
+     * find the page at currentItem, it is instantiated if it is missing
+     * 
+     * @param count count of the adapter
+     * @return index of the current page, -1 if count is 0
+     */
+    public static int addCurrent(Pages pages, int currentItem, int count) {
+        final int index = pages.indexOf(currentItem);
+        if (index >= 0) {
+            return index;
+        }
+        if (count <= 0) {
+            return -1;
+        }
+        pages.add(currentItem, -index - 1);
+        return -index - 1;
+    }
+
+    /**
+     * Walk both sides of the current page as ViewPager#populate does. Missing pages are added until the width needed
+     * on a side is filled and the walk has passed {@link #startPosition(int, int)} or {@link #endPosition(int, int,
+     * int)}, then the pages left on that side are destroyed, except the ones still scrolled to.
+     * 
+     * @param curIndex index of the current page
+     * @param count count of the adapter
+     * @param leftWidthNeeded width, in client widths, to fill on the left of the current page
+     * @param rightWidthNeeded width, in client widths, to fill on the right, the current page included
+     * @return index of the current page after the walk
+     */
+    public static int fill(Pages pages, int curIndex, int count, int startPos, int endPos, float leftWidthNeeded,
+            float rightWidthNeeded) {
+        final int currentItem = pages.getPosition(curIndex);
+        float extraWidthLeft = 0.f;
+        int itemIndex = curIndex - 1;
+        for (int pos = currentItem - 1; pos >= 0; pos--) {
+            if (extraWidthLeft >= leftWidthNeeded && pos < startPos) {
+                // past the window, every page left on this side goes, instead of walking the gap position by position
+                for (; itemIndex >= 0; itemIndex--) {
+                    if (!pages.isScrolling(itemIndex)) {
+                        pages.destroy(itemIndex);
+                        curIndex--;
+                    }
+                }
+                break;
+            } else if (itemIndex >= 0 && pos == pages.getPosition(itemIndex)) {
+                extraWidthLeft += pages.getWidthFactor(itemIndex);
+                itemIndex--;
+            } else {
+                pages.add(pos, itemIndex + 1);
+                extraWidthLeft += pages.getWidthFactor(itemIndex + 1);
+                curIndex++;
+            }
+        }
+
+        float extraWidthRight = pages.getWidthFactor(curIndex);
+        itemIndex = curIndex + 1;
+        if (extraWidthRight < 2.f) {
+            for (int pos = currentItem + 1; pos < count; pos++) {
+                if (extraWidthRight >= rightWidthNeeded && pos > endPos) {
+                    while (itemIndex < pages.size()) {
+                        if (!pages.isScrolling(itemIndex)) {
+                            pages.destroy(itemIndex);
+                        } else {
+                            itemIndex++;
+                        }
+                    }
+                    break;
+                } else if (itemIndex < pages.size() && pos == pages.getPosition(itemIndex)) {
+                    extraWidthRight += pages.getWidthFactor(itemIndex);
+                    itemIndex++;
+                } else {
+                    pages.add(pos, itemIndex);
+                    extraWidthRight += pages.getWidthFactor(itemIndex);
+                    itemIndex++;
+                }
+            }
+        }
+        return curIndex;
+    }
+
+    /**
+     * Estimated bytes held by the page at a position
+     */
+    public interface PageSizes {
+
+        /**
+         * @return bytes of the page at position, 0 or less if unknown
+         */
+        int getPageBytes(int position);
+    }
+
+    /**
+     * Split pageLimit into a left and a right limit whose pages fit in byteLimit together with currentItem and its
+     * direct neighbours, which are always kept to scroll to. Each distance is offered to the side of direction first,
+     * so the pages furthest behind the scroll direction are the first to go. A side stops growing at the first page
+     * that does not fit.
+     *
+     * @param direction 1 if the pager last moved to a higher position, -1 otherwise
+     * @param outLimits receives the left limit at 0 and the right limit at 1
+     */
+    public static void sideLimits(int currentItem, int pageLimit, int count, int direction, PageSizes sizes,
+            int byteLimit, int[] outLimits) {
+        final int minLimit = Math.min(1, pageLimit);
+        long bytes = pageBytes(sizes, currentItem, count);
+        for (int distance = 1; distance <= minLimit; distance++) {
+            bytes += pageBytes(sizes, currentItem - distance, count) + pageBytes(sizes, currentItem + distance, count);
+        }
+        int leftLimit = minLimit, rightLimit = minLimit;
+        boolean leftOpen = currentItem - minLimit > 0, rightOpen = currentItem + minLimit < count - 1;
+        for (int distance = minLimit + 1; distance <= pageLimit && (leftOpen || rightOpen); distance++) {
+            for (int i = 0; i < 2; i++) {
+                final boolean right = (i == 0) == (direction >= 0);
+                if (right ? !rightOpen : !leftOpen) {
+                    continue;
+                }
+                final int position = right ? currentItem + distance : currentItem - distance;
+                final long newBytes = bytes + pageBytes(sizes, position, count);
+                if (newBytes > byteLimit) {
+                    if (right) {
+                        rightOpen = false;
+                    } else {
+                        leftOpen = false;
+                    }
+                    continue;
+                }
+                bytes = newBytes;
+                if (right) {
+                    rightLimit = distance;
+                    rightOpen = position < count - 1;
+                } else {
+                    leftLimit = distance;
+                    leftOpen = position > 0;
+                }
+            }
+        }
+        outLimits[0] = leftLimit;
+        outLimits[1] = rightLimit;
+    }
+
+    private static int pageBytes(PageSizes sizes, int position, int count) {
+        return position < 0 || position >= count ? 0 : Math.max(0, sizes.getPageBytes(position));
+    }
+}
@@ -0,0 +1,62 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InterpolationTableTest {
+
+    private static final float DELTA = 1e-6f;
+
+    @Test
+    public void interpolatesBetweenSamples() {
+        InterpolationTable table = new InterpolationTable(new float[] {0, 1, 4});
+        assertEquals(0, table.get(0), DELTA);
+        assertEquals(0.5f, table.get(0.25f), DELTA);
+        assertEquals(1, table.get(0.5f), DELTA);
+        assertEquals(2.5f, table.get(0.75f), DELTA);
+        assertEquals(4, table.get(1), DELTA);
+    }
+
+    @Test
+    public void clampsInputs() {
+        InterpolationTable table = new InterpolationTable(new float[] {1, 2});
+        assertEquals(1, table.get(-1), DELTA);
+        assertEquals(2, table.get(2), DELTA);
+    }
+
+    @Test
+    public void defaultSampleCountKeepsTheQuinticError() {
+        int sampleCount = InterpolationTable.DEFAULT_SAMPLE_COUNT;
+        float[] samples = new float[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            samples[i] = quintic((float)i / (sampleCount - 1));
+        }
+        InterpolationTable table = new InterpolationTable(samples);
+        float maxError = 0;
+        for (int i = 0; i <= 10000; i++) {
+            float input = i / 10000f;
+            maxError = Math.max(maxError, Math.abs(table.get(input) - quintic(input)));
+        }
+        assertTrue("max error " + maxError, maxError < 1e-4f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsTwoSamples() {
+        new InterpolationTable(new float[] {1});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void needsSamples() {
+        new InterpolationTable(null);
+    }
+
+    /**
+     * ViewPager's scroll interpolator
+     */
+    private static float quintic(float t) {
+        t -= 1.0f;
+        return t * t * t * t * t + 1.0f;
+    }
+}
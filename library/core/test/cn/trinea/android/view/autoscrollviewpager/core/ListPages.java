@@ -0,0 +1,84 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Pages of a pager as sorted lists, every page has width factor {@link #widthFactor}
+ */
+class ListPages implements PopulateWindow.Pages, PageOffsets.PageWidths {
+
+    final List<Integer> positions = new ArrayList<Integer>();
+    final List<Float>   offsets   = new ArrayList<Float>();
+    final List<Integer> scrolling = new ArrayList<Integer>();
+    final float         widthFactor;
+    int                 addCount;
+    int                 destroyCount;
+
+    ListPages(float widthFactor, int... positions) {
+        this.widthFactor = widthFactor;
+        for (int position : positions) {
+            this.positions.add(position);
+            offsets.add(0f);
+        }
+    }
+
+    @Override
+    public int size() {
+        return positions.size();
+    }
+
+    @Override
+    public int getPosition(int index) {
+        return positions.get(index);
+    }
+
+    @Override
+    public float getWidthFactor(int index) {
+        return widthFactor;
+    }
+
+    @Override
+    public boolean isScrolling(int index) {
+        return scrolling.contains(positions.get(index));
+    }
+
+    @Override
+    public float getOffset(int index) {
+        return offsets.get(index);
+    }
+
+    @Override
+    public void setOffset(int index, float offset) {
+        offsets.set(index, offset);
+    }
+
+    @Override
+    public int indexOf(int position) {
+        return Collections.binarySearch(positions, position);
+    }
+
+    @Override
+    public void add(int position, int index) {
+        positions.add(index, position);
+        offsets.add(index, 0f);
+        addCount++;
+    }
+
+    @Override
+    public void destroy(int index) {
+        positions.remove(index);
+        offsets.remove(index);
+        destroyCount++;
+    }
+
+    @Override
+    public float getPageWidthSum(int fromPosition, int toPosition) {
+        return (toPosition - fromPosition) * widthFactor;
+    }
+
+    float offsetOf(int position) {
+        return offsets.get(positions.indexOf(position));
+    }
+}
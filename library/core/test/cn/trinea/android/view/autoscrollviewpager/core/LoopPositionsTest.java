@@ -0,0 +1,134 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LoopPositionsTest {
+
+    @Test
+    public void virtualCountHoldsWholeCycles() {
+        assertEquals(0, LoopPositions.virtualCount(0));
+        assertEquals(0, LoopPositions.virtualCount(-1));
+        assertEquals(LoopPositions.MIN_VIRTUAL_COUNT, LoopPositions.virtualCount(1));
+        assertEquals(35, LoopPositions.virtualCount(5));
+        assertEquals(100 * LoopPositions.MIN_CYCLES, LoopPositions.virtualCount(100));
+        for (int realCount = 1; realCount < 200; realCount++) {
+            int virtualCount = LoopPositions.virtualCount(realCount);
+            assertEquals(0, virtualCount % realCount);
+            assertTrue(virtualCount >= LoopPositions.MIN_VIRTUAL_COUNT);
+            assertTrue(virtualCount / realCount >= LoopPositions.MIN_CYCLES);
+        }
+    }
+
+    @Test
+    public void virtualCountDoesNotOverflow() {
+        assertEquals(Integer.MAX_VALUE, LoopPositions.virtualCount(Integer.MAX_VALUE / 2));
+        assertEquals(Integer.MAX_VALUE, LoopPositions.virtualCount(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void centerPositionShowsRealPositionZero() {
+        assertEquals(15, LoopPositions.centerPosition(35, 5));
+        assertEquals(16, LoopPositions.centerPosition(32, 1));
+        assertEquals(3, LoopPositions.centerPosition(7, 0));
+    }
+
+    @Test
+    public void toRealPosition() {
+        assertEquals(0, LoopPositions.toRealPosition(15, 5));
+        assertEquals(4, LoopPositions.toRealPosition(34, 5));
+        assertEquals(7, LoopPositions.toRealPosition(7, 0));
+    }
+
+    @Test
+    public void toVirtualPositionMovesRealPositionsToTheCentre() {
+        assertEquals(17, LoopPositions.toVirtualPosition(2, 35, 5));
+        // not below the real count, already virtual
+        assertEquals(20, LoopPositions.toVirtualPosition(20, 35, 5));
+        assertEquals(5, LoopPositions.toVirtualPosition(5, 35, 5));
+    }
+
+    @Test
+    public void recenterPositionKeepsPositionsAwayFromTheEnds() {
+        assertEquals(20, LoopPositions.recenterPosition(20, 35, 5, 2));
+        assertEquals(18, LoopPositions.recenterPosition(3, 35, 5, 2));
+        assertEquals(15, LoopPositions.recenterPosition(30, 35, 5, 2));
+        assertEquals(9, LoopPositions.recenterPosition(9, 35, 0, 2));
+    }
+
+    @Test
+    public void recenterPositionKeepsTheRealPosition() {
+        int[] realCounts = {1, 2, 5, 31, 100};
+        for (int realCount : realCounts) {
+            int virtualCount = LoopPositions.virtualCount(realCount);
+            int center = LoopPositions.centerPosition(virtualCount, realCount);
+            for (int margin = 1; margin <= 4; margin++) {
+                for (int position = 0; position < virtualCount; position++) {
+                    int target = LoopPositions.recenterPosition(position, virtualCount, realCount, margin);
+                    assertEquals(position % realCount, target % realCount);
+                    if (target != position) {
+                        // moved to the centre cycle
+                        assertEquals(center, target - target % realCount);
+                    }
+                    // the window around the target fits in the virtual range
+                    assertTrue(target - margin >= 0);
+                    assertTrue(target + margin < virtualCount);
+                    // a recentred position stays where it is
+                    assertEquals(target, LoopPositions.recenterPosition(target, virtualCount, realCount, margin));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wholeCyclesStaysBelowTheBound() {
+        int max = Integer.MAX_VALUE / 2;
+        assertEquals(0, LoopPositions.wholeCycles(0, max));
+        assertEquals(0, LoopPositions.wholeCycles(-3, max));
+        assertEquals(max, LoopPositions.wholeCycles(1, max));
+        assertEquals(30, LoopPositions.wholeCycles(6, 32));
+        // a single cycle if it does not fit at all
+        assertEquals(40, LoopPositions.wholeCycles(40, 32));
+        int[] realCounts = {2, 3, 6, 7, 1000, 65537};
+        for (int realCount : realCounts) {
+            int virtualCount = LoopPositions.wholeCycles(realCount, max);
+            assertEquals(0, virtualCount % realCount);
+            assertTrue(virtualCount <= max);
+            assertTrue(virtualCount > max - realCount);
+        }
+    }
+
+    @Test
+    public void largeVirtualRangeMapsEveryCycleToTheRealPositions() {
+        int[] realCounts = {1, 2, 6, 7, 1000};
+        for (int realCount : realCounts) {
+            int virtualCount = LoopPositions.wholeCycles(realCount, Integer.MAX_VALUE / 2);
+            int center = LoopPositions.centerPosition(virtualCount, realCount);
+            assertEquals(0, LoopPositions.toRealPosition(center, realCount));
+            for (int real = 0; real < realCount; real++) {
+                assertEquals(real, LoopPositions.toRealPosition(real, realCount));
+                assertEquals(real, LoopPositions.toRealPosition(center + real, realCount));
+                assertEquals(real, LoopPositions.toRealPosition(virtualCount - realCount + real, realCount));
+            }
+        }
+    }
+
+    @Test
+    public void keepRealPositionUsesTheOldCount() {
+        int center = LoopPositions.centerPosition(LoopPositions.wholeCycles(6, Integer.MAX_VALUE / 2), 6);
+        // real item 2 of 6 stays 2 of 4, the new count alone would give 0
+        assertEquals(2, LoopPositions.keepRealPosition(center + 2, 6, 4));
+        assertEquals(2, LoopPositions.keepRealPosition(center + 2, 6, 10));
+    }
+
+    @Test
+    public void keepRealPositionClampsToTheNewCount() {
+        assertEquals(2, LoopPositions.keepRealPosition(35, 6, 3));
+        assertEquals(0, LoopPositions.keepRealPosition(35, 6, 1));
+        assertEquals(-1, LoopPositions.keepRealPosition(35, 6, 0));
+        // nothing was shown before
+        assertEquals(0, LoopPositions.keepRealPosition(35, 0, 3));
+    }
+}
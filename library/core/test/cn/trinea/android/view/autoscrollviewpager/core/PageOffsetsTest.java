@@ -0,0 +1,108 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PageOffsetsTest {
+
+    private static final float DELTA = 1e-4f;
+
+    @Test
+    public void prefixSums() {
+        assertArrayEquals(new float[] {0, 1, 3, 6}, PageOffsets.prefixSums(new float[] {1, 2, 3}), DELTA);
+    }
+
+    @Test
+    public void cyclicWidthSumMatchesAWalk() {
+        float[] realWidths = {1, 0.5f, 2, 0.25f, 1};
+        float[] prefix = PageOffsets.prefixSums(realWidths);
+        for (int from = 0; from < 30; from++) {
+            for (int to = from; to < 40; to++) {
+                float sum = 0;
+                for (int position = from; position < to; position++) {
+                    sum += realWidths[position % realWidths.length];
+                }
+                assertEquals(sum, PageOffsets.cyclicWidthSum(prefix, from, to), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void spanAddsAMarginPerPage() {
+        ListPages widths = new ListPages(1f);
+        assertEquals(0, PageOffsets.span(widths, 3, 3, 0.5f), DELTA);
+        assertEquals(0, PageOffsets.span(widths, 4, 3, 0.5f), DELTA);
+        assertEquals(3, PageOffsets.span(widths, 0, 2, 0.5f), DELTA);
+    }
+
+    @Test
+    public void firstAndLastOffset() {
+        assertEquals(-2, PageOffsets.firstOffset(0, -2), DELTA);
+        assertEquals(-Float.MAX_VALUE, PageOffsets.firstOffset(3, -2), 0);
+        assertEquals(5, PageOffsets.lastOffset(9, 5, 1, 10), DELTA);
+        assertEquals(5.5f, PageOffsets.lastOffset(9, 5, 1.5f, 10), DELTA);
+        assertEquals(Float.MAX_VALUE, PageOffsets.lastOffset(8, 5, 1, 10), 0);
+    }
+
+    @Test
+    public void calculateAroundTheCurrentPage() {
+        ListPages pages = new ListPages(1f, 4, 5, 6);
+        float[] firstLast = calculate(pages, 1, -1, 0, 100, 0.1f);
+        assertEquals(-1.1f, pages.offsetOf(4), DELTA);
+        assertEquals(0, pages.offsetOf(5), DELTA);
+        assertEquals(1.1f, pages.offsetOf(6), DELTA);
+        assertEquals(-Float.MAX_VALUE, firstLast[0], 0);
+        assertEquals(Float.MAX_VALUE, firstLast[1], 0);
+    }
+
+    @Test
+    public void calculateSpansGaps() {
+        ListPages pages = new ListPages(1f, 2, 5, 9);
+        calculate(pages, 1, -1, 0, 100, 0);
+        assertEquals(-3, pages.offsetOf(2), DELTA);
+        assertEquals(4, pages.offsetOf(9), DELTA);
+    }
+
+    @Test
+    public void calculateFromTheOldCurrentPage() {
+        ListPages pages = new ListPages(1f, 4, 5, 6);
+        calculate(pages, 1, 4, 10, 100, 0);
+        assertEquals(10, pages.offsetOf(4), DELTA);
+        assertEquals(11, pages.offsetOf(5), DELTA);
+        assertEquals(12, pages.offsetOf(6), DELTA);
+
+        pages = new ListPages(1f, 4, 5, 6);
+        calculate(pages, 1, 6, 10, 100, 0);
+        assertEquals(8, pages.offsetOf(4), DELTA);
+        assertEquals(9, pages.offsetOf(5), DELTA);
+        assertEquals(10, pages.offsetOf(6), DELTA);
+    }
+
+    @Test
+    public void calculateFromAnOldCurrentPageFarAway() {
+        ListPages pages = new ListPages(1f, 49, 50, 51);
+        calculate(pages, 1, 10, 0, 100, 0.5f);
+        // 39 pages of width 1.5 between the old current page and the new one
+        assertEquals(60, pages.offsetOf(50), DELTA);
+        assertEquals(58.5f, pages.offsetOf(49), DELTA);
+        assertEquals(61.5f, pages.offsetOf(51), DELTA);
+    }
+
+    @Test
+    public void calculateAtTheEnds() {
+        ListPages pages = new ListPages(1f, 0, 1);
+        float[] firstLast = calculate(pages, 1, -1, 0, 2, 0);
+        assertEquals(-1, firstLast[0], DELTA);
+        assertEquals(0, firstLast[1], DELTA);
+    }
+
+    private static float[] calculate(ListPages pages, int curIndex, int oldCurPosition, float oldCurOffset,
+            int count, float marginOffset) {
+        float[] firstLast = new float[2];
+        PageOffsets.calculate(pages, pages, curIndex, oldCurPosition, oldCurOffset, pages.widthFactor, count,
+                marginOffset, firstLast);
+        return firstLast;
+    }
+}
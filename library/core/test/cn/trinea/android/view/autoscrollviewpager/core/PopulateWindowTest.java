@@ -0,0 +1,145 @@
+package cn.trinea.android.view.autoscrollviewpager.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class PopulateWindowTest {
+
+    private static final int COUNT = 100;
+
+    @Test
+    public void windowBounds() {
+        assertEquals(48, PopulateWindow.startPosition(50, 2));
+        assertEquals(0, PopulateWindow.startPosition(1, 2));
+        assertEquals(52, PopulateWindow.endPosition(50, 2, COUNT));
+        assertEquals(COUNT - 1, PopulateWindow.endPosition(COUNT - 2, 2, COUNT));
+    }
+
+    @Test
+    public void sideLimitsWithoutRoomKeepTheNeighbours() {
+        assertArrayEquals(new int[] {1, 1}, sideLimits(50, 3, 1, uniformSizes(10), 30));
+        assertArrayEquals(new int[] {1, 1}, sideLimits(50, 3, 1, uniformSizes(10), 0));
+        assertArrayEquals(new int[] {0, 0}, sideLimits(50, 0, 1, uniformSizes(10), 100));
+    }
+
+    @Test
+    public void sideLimitsPreferTheScrollDirection() {
+        assertArrayEquals(new int[] {1, 2}, sideLimits(50, 3, 1, uniformSizes(10), 40));
+        assertArrayEquals(new int[] {2, 1}, sideLimits(50, 3, -1, uniformSizes(10), 40));
+        assertArrayEquals(new int[] {2, 2}, sideLimits(50, 3, 1, uniformSizes(10), 55));
+        assertArrayEquals(new int[] {3, 3}, sideLimits(50, 3, 1, uniformSizes(10), 70));
+    }
+
+    @Test
+    public void sideLimitsStopAtTheFirstPageThatDoesNotFit() {
+        PopulateWindow.PageSizes sizes = new PopulateWindow.PageSizes() {
+
+            @Override
+            public int getPageBytes(int position) {
+                return position == 52 ? 100 : 10;
+            }
+        };
+        assertArrayEquals(new int[] {3, 1}, sideLimits(50, 3, 1, sizes, 100));
+    }
+
+    @Test
+    public void sideLimitsAtTheEnds() {
+        assertArrayEquals(new int[] {1, 3}, sideLimits(0, 3, 1, uniformSizes(10), 100));
+        assertArrayEquals(new int[] {3, 1}, sideLimits(COUNT - 1, 3, 1, uniformSizes(10), 100));
+    }
+
+    @Test
+    public void sideLimitsIgnoreUnknownSizes() {
+        assertArrayEquals(new int[] {3, 3}, sideLimits(50, 3, 1, uniformSizes(-1), 1));
+    }
+
+    @Test
+    public void addCurrent() {
+        ListPages pages = new ListPages(1f, 49, 51);
+        assertEquals(1, PopulateWindow.addCurrent(pages, 50, COUNT));
+        assertEquals(Arrays.asList(49, 50, 51), pages.positions);
+        assertEquals(2, PopulateWindow.addCurrent(pages, 51, COUNT));
+        assertEquals(1, pages.addCount);
+        assertEquals(-1, PopulateWindow.addCurrent(new ListPages(1f), 0, 0));
+    }
+
+    @Test
+    public void fillAddsTheWindow() {
+        ListPages pages = new ListPages(1f, 50);
+        assertEquals(1, fill(pages, 0, 1));
+        assertEquals(Arrays.asList(49, 50, 51), pages.positions);
+        pages = new ListPages(1f, 50);
+        assertEquals(2, fill(pages, 0, 2));
+        assertEquals(Arrays.asList(48, 49, 50, 51, 52), pages.positions);
+    }
+
+    @Test
+    public void fillStepsOnePage() {
+        ListPages pages = new ListPages(1f, 49, 50, 51);
+        assertEquals(1, fill(pages, PopulateWindow.addCurrent(pages, 51, COUNT), 1));
+        assertEquals(Arrays.asList(50, 51, 52), pages.positions);
+        assertEquals(1, pages.addCount);
+        assertEquals(1, pages.destroyCount);
+    }
+
+    @Test
+    public void fillRebuildsTheWindowAfterAJump() {
+        ListPages pages = new ListPages(1f, 49, 50, 51);
+        assertEquals(1, fill(pages, PopulateWindow.addCurrent(pages, 80, COUNT), 1));
+        assertEquals(Arrays.asList(79, 80, 81), pages.positions);
+        assertEquals(3, pages.destroyCount);
+    }
+
+    @Test
+    public void fillKeepsPagesScrolledTo() {
+        ListPages pages = new ListPages(1f, 48, 49, 50, 51);
+        pages.scrolling.add(48);
+        assertEquals(2, fill(pages, PopulateWindow.addCurrent(pages, 51, COUNT), 1));
+        assertEquals(Arrays.asList(48, 50, 51, 52), pages.positions);
+    }
+
+    @Test
+    public void fillTheWidthBeyondThePageLimit() {
+        // half width pages, one and a half client widths on the left, two on the right with the current page
+        ListPages pages = new ListPages(0.5f, 50);
+        assertEquals(3, PopulateWindow.fill(pages, 0, COUNT, 50, 50, 1.5f, 2f));
+        assertEquals(Arrays.asList(47, 48, 49, 50, 51, 52, 53), pages.positions);
+    }
+
+    @Test
+    public void fillStopsAtTheEnds() {
+        ListPages pages = new ListPages(1f, 0);
+        assertEquals(0, fill(pages, 0, 2));
+        assertEquals(Arrays.asList(0, 1, 2), pages.positions);
+        pages = new ListPages(1f, COUNT - 1);
+        assertEquals(2, fill(pages, 0, 2));
+        assertEquals(Arrays.asList(COUNT - 3, COUNT - 2, COUNT - 1), pages.positions);
+    }
+
+    private static int fill(ListPages pages, int curIndex, int pageLimit) {
+        int currentItem = pages.getPosition(curIndex);
+        return PopulateWindow.fill(pages, curIndex, COUNT, PopulateWindow.startPosition(currentItem, pageLimit),
+                PopulateWindow.endPosition(currentItem, pageLimit, COUNT), 1f, 2f);
+    }
+
+    private static int[] sideLimits(int currentItem, int pageLimit, int direction, PopulateWindow.PageSizes sizes,
+            int byteLimit) {
+        int[] limits = new int[2];
+        PopulateWindow.sideLimits(currentItem, pageLimit, COUNT, direction, sizes, byteLimit, limits);
+        return limits;
+    }
+
+    private static PopulateWindow.PageSizes uniformSizes(final int bytes) {
+        return new PopulateWindow.PageSizes() {
+
+            @Override
+            public int getPageBytes(int position) {
+                return bytes;
+            }
+        };
+    }
+}
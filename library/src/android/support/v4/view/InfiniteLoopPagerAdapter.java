@@ -1,28 +1,112 @@
 package android.support.v4.view;
 
+import android.database.DataSetObserver;
 import android.os.Parcelable;
 import android.util.Log;
+import android.util.SparseBooleanArray;
 import android.view.View;
 import android.view.ViewGroup;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+import cn.trinea.android.view.autoscrollviewpager.PagerMetrics;
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+import cn.trinea.android.view.autoscrollviewpager.core.PageOffsets;
+import cn.trinea.android.view.autoscrollviewpager.core.PopulateWindow;
+
 /**
  * Created by lsjwzh on 13-8-12.
  */
-public class InfiniteLoopPagerAdapter extends PagerAdapter {
+public class InfiniteLoopPagerAdapter extends PagerAdapter
+        implements PageOffsets.PageWidths, PopulateWindow.PageSizes {
     private static final String TAG = "InfiniteLoopPagerAdapter";
     private static final boolean DEBUG = false;
 
     private PagerAdapter mAdapter;
+    /** forwards changes of mAdapter to the observers of this adapter while any is registered **/
+    private final DataSetObserver mForwardingObserver = new DataSetObserver() {
+        @Override
+        public void onChanged() {
+            mPageWidthPrefix = null;
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public void onInvalidated() {
+            mPageWidthPrefix = null;
+            notifyDataSetChanged();
+        }
+    };
+    private int mObserverCount;
+    /** real count of mAdapter when the pager last took its positions from this adapter **/
+    private int mKnownRealCount;
+    /** item id of each instantiated object, only used if mAdapter is a {@link StableIdAdapter} **/
+    private final IdentityHashMap<Object, Long> mItemIds = new IdentityHashMap<Object, Long>();
+    /** width factor of every page if the wrapped mAdapter keeps the default getPageWidth, otherwise -1 **/
+    private final float mUniformPageWidth;
+    /** prefix sums of the real page widths, built by the first sum that needs them and dropped on changes **/
+    private float[] mPageWidthPrefix;
+
+    /*
+     * State of a data set change, between beginDataSetChange and endDataSetChange
+     */
+    private IdentityHashMap<Object, Integer> mChangeOldPositions;
+    private HashMap<Long, Integer> mChangeIdPositions;
+    private final SparseBooleanArray mChangeTakenPositions = new SparseBooleanArray();
+    private int mChangeOldCurrent;
+    private int mChangeNewCurrent;
+    private int mChangeAnchorReal;
+    private boolean mChangeKeepsCurrent;
 
     public InfiniteLoopPagerAdapter(PagerAdapter mAdapter) {
         this.mAdapter = mAdapter;
+        this.mKnownRealCount = mAdapter.getCount();
+        this.mUniformPageWidth = hasDefaultPageWidth(mAdapter) ? 1.f : -1;
+    }
+
+    private static boolean hasDefaultPageWidth(PagerAdapter adapter) {
+        try {
+            return adapter.getClass().getMethod("getPageWidth", int.class).getDeclaringClass() == PagerAdapter.class;
+        } catch (Exception e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Implemented by wrapped adapters whose items have stable ids. Pages then follow their item when items are
+     * inserted, removed or moved, otherwise {@link #getItemPosition(Object)} of the wrapped adapter decides.
+     */
+    public interface StableIdAdapter {
+
+        /**
+         * @return id of the item at position, the same item keeps the same id across data set changes
+         */
+        long getItemId(int position);
+    }
+
+    /**
+     * Implemented by adapters that can tell how much memory a page holds, bitmaps above all, so
+     * {@link LoopCompatibleViewPager#setRetainedPageMemoryLimit(int)} can keep fewer heavy pages offscreen. Works for
+     * the adapter wrapped by this one as well as for an adapter set on a pager not in loop mode.
+     */
+    public interface PageSizeEstimator {
+
+        /**
+         * called for pages that are not instantiated yet as well, should be cheap
+         *
+         * @return estimated bytes of the page at position, 0 if negligible
+         */
+        int estimatePageBytes(int position);
     }
 
     @Override
     public int getCount() {
-        // warning: scrolling to very high values (1,000,000+) results in
-        // strange drawing behaviour
-        return Integer.MAX_VALUE;
+        // a few cycles only, LoopCompatibleViewPager moves back to the centre cycle
+        // when it settles close to either end
+        return LoopPositions.virtualCount(getRealCount());
     }
 
     /**
@@ -36,24 +120,224 @@ public class InfiniteLoopPagerAdapter extends PagerAdapter {
         return mAdapter;
     }
 
+    /**
+     * @return the position of the wrapped mAdapter for a position of this adapter
+     */
+    public int toRealPosition(int position) {
+        return LoopPositions.toRealPosition(position, getRealCount());
+    }
+
+    /**
+     * @return the position of this adapter showing real position 0 in the middle of {@link #getCount()}
+     */
+    public int getCenterPosition() {
+        return LoopPositions.centerPosition(getCount(), getRealCount());
+    }
+
+    /**
+     * @return item moved to the centre cycle if it is a real position, otherwise item itself
+     */
+    public int toVirtualPosition(int item) {
+        return LoopPositions.toVirtualPosition(item, getCount(), getRealCount());
+    }
+
     @Override
     public Object instantiateItem(ViewGroup container, int position) {
-        int virtualPosition = position % getRealCount();
+        int virtualPosition = toRealPosition(position);
         debug("instantiateItem: real position: " + position);
         debug("instantiateItem: virtual position: " + virtualPosition);
 
         // only expose virtual position to the inner mAdapter
-        return mAdapter.instantiateItem(container, virtualPosition);
+        final long beginTime = PagerMetrics.begin(PagerMetrics.INSTANTIATE_ITEM);
+        final Object item;
+        try {
+            item = mAdapter.instantiateItem(container, virtualPosition);
+        } finally {
+            PagerMetrics.end(PagerMetrics.INSTANTIATE_ITEM, beginTime);
+        }
+        if (mAdapter instanceof StableIdAdapter) {
+            mItemIds.put(item, ((StableIdAdapter) mAdapter).getItemId(virtualPosition));
+        }
+        return item;
     }
 
     @Override
     public void destroyItem(ViewGroup container, int position, Object object) {
-        int virtualPosition = position % getRealCount();
+        // pages removed by a data set change still carry positions of the old count
+        int virtualPosition = mChangeOldPositions != null
+                ? LoopPositions.toRealPosition(position, mKnownRealCount) : toRealPosition(position);
+        mItemIds.remove(object);
         debug("destroyItem: real position: " + position);
         debug("destroyItem: virtual position: " + virtualPosition);
 
         // only expose virtual position to the inner mAdapter
-        mAdapter.destroyItem(container, virtualPosition, object);
+        final long beginTime = PagerMetrics.begin(PagerMetrics.DESTROY_ITEM);
+        try {
+            mAdapter.destroyItem(container, virtualPosition, object);
+        } finally {
+            PagerMetrics.end(PagerMetrics.DESTROY_ITEM, beginTime);
+        }
+    }
+
+    @Override
+    public float getPageWidth(int position) {
+        return mAdapter.getPageWidth(toRealPosition(position));
+    }
+
+    @Override
+    public float getPageWidthSum(int fromPosition, int toPosition) {
+        if (mUniformPageWidth >= 0) {
+            return (toPosition - fromPosition) * mUniformPageWidth;
+        }
+        final int realCount = getRealCount();
+        if (realCount <= 0) {
+            return 0;
+        }
+        float[] prefix = mPageWidthPrefix;
+        if (prefix == null || prefix.length != realCount + 1) {
+            float[] realWidths = new float[realCount];
+            for (int i = 0; i < realCount; i++) {
+                realWidths[i] = mAdapter.getPageWidth(i);
+            }
+            prefix = mPageWidthPrefix = PageOffsets.prefixSums(realWidths);
+        }
+        return PageOffsets.cyclicWidthSum(prefix, fromPosition, toPosition);
+    }
+
+    /**
+     * @return whether the wrapped mAdapter is a {@link PageSizeEstimator}
+     */
+    public boolean hasPageSizes() {
+        return mAdapter instanceof PageSizeEstimator;
+    }
+
+    @Override
+    public int getPageBytes(int position) {
+        return mAdapter instanceof PageSizeEstimator
+                ? ((PageSizeEstimator) mAdapter).estimatePageBytes(toRealPosition(position)) : 0;
+    }
+
+    @Override
+    public void registerDataSetObserver(DataSetObserver observer) {
+        super.registerDataSetObserver(observer);
+        if (mObserverCount++ == 0) {
+            mAdapter.registerDataSetObserver(mForwardingObserver);
+        }
+    }
+
+    @Override
+    public void unregisterDataSetObserver(DataSetObserver observer) {
+        super.unregisterDataSetObserver(observer);
+        if (mObserverCount > 0 && --mObserverCount == 0) {
+            mAdapter.unregisterDataSetObserver(mForwardingObserver);
+        }
+    }
+
+    /**
+     * Called by {@link LoopCompatibleViewPager} before ViewPager asks {@link #getItemPosition(Object)} for each
+     * page after a data set change. The current page keeps its real item if it still exists and moves to the centre
+     * cycle, every other page gets the position closest to its old distance from the current page.
+     *
+     * @param items pages of the pager
+     * @param curItem current position of the pager
+     */
+    void beginDataSetChange(ArrayList<ViewPager.ItemInfo> items, int curItem) {
+        final int newRealCount = getRealCount();
+        mChangeOldPositions = new IdentityHashMap<Object, Integer>();
+        mChangeTakenPositions.clear();
+        mChangeIdPositions = null;
+        if (mAdapter instanceof StableIdAdapter && !mItemIds.isEmpty()) {
+            mChangeIdPositions = new HashMap<Long, Integer>();
+            for (int i = 0; i < newRealCount; i++) {
+                mChangeIdPositions.put(((StableIdAdapter) mAdapter).getItemId(i), i);
+            }
+        }
+
+        Object curObject = null;
+        for (int i = 0; i < items.size(); i++) {
+            ViewPager.ItemInfo ii = items.get(i);
+            mChangeOldPositions.put(ii.object, ii.position);
+            if (ii.position == curItem) {
+                curObject = ii.object;
+            }
+        }
+        mChangeOldCurrent = curItem;
+        if (newRealCount <= 0) {
+            mChangeKeepsCurrent = false;
+            return;
+        }
+        int curReal = curObject == null ? -1 : newRealPosition(curObject, curItem, newRealCount);
+        mChangeKeepsCurrent = curReal >= 0;
+        mChangeAnchorReal = mChangeKeepsCurrent ? curReal
+                : Math.min(LoopPositions.toRealPosition(curItem, mKnownRealCount), newRealCount - 1);
+        mChangeNewCurrent = LoopPositions.centerPosition(getCount(), newRealCount) + mChangeAnchorReal;
+        if (mChangeKeepsCurrent) {
+            mChangeTakenPositions.put(mChangeNewCurrent, true);
+        }
+    }
+
+    /**
+     * @return position the pager should show if its current page was removed, -1 otherwise
+     */
+    int endDataSetChange() {
+        int current = mChangeKeepsCurrent || getRealCount() <= 0 ? -1 : mChangeNewCurrent;
+        mChangeOldPositions = null;
+        mChangeIdPositions = null;
+        mChangeTakenPositions.clear();
+        mKnownRealCount = getRealCount();
+        return current;
+    }
+
+    @Override
+    public int getItemPosition(Object object) {
+        if (mChangeOldPositions == null) {
+            return mAdapter.getItemPosition(object) == POSITION_NONE ? POSITION_NONE : POSITION_UNCHANGED;
+        }
+        Integer oldPosition = mChangeOldPositions.get(object);
+        final int newRealCount = getRealCount();
+        if (oldPosition == null || newRealCount <= 0) {
+            return POSITION_NONE;
+        }
+        if (oldPosition == mChangeOldCurrent) {
+            return mChangeKeepsCurrent ? mChangeNewCurrent : POSITION_NONE;
+        }
+        int newReal = newRealPosition(object, oldPosition, newRealCount);
+        if (newReal < 0) {
+            return POSITION_NONE;
+        }
+        // keep the page as close as possible to its old distance from the current page
+        int distance = oldPosition - mChangeOldCurrent;
+        int shift = ((newReal - mChangeAnchorReal - distance) % newRealCount + newRealCount) % newRealCount;
+        if (shift > newRealCount / 2) {
+            shift -= newRealCount;
+        }
+        int newPosition = mChangeNewCurrent + distance + shift;
+        if (newPosition < 0 || newPosition >= getCount() || mChangeTakenPositions.get(newPosition)) {
+            return POSITION_NONE;
+        }
+        mChangeTakenPositions.put(newPosition, true);
+        return newPosition;
+    }
+
+    /**
+     * @return real position of object after the change, -1 if it was removed or has to be rebuilt
+     */
+    private int newRealPosition(Object object, int oldPosition, int newRealCount) {
+        final int wrappedPosition = mAdapter.getItemPosition(object);
+        if (wrappedPosition == POSITION_NONE) {
+            return -1;
+        }
+        int newReal;
+        Long id = mChangeIdPositions == null ? null : mItemIds.get(object);
+        if (id != null) {
+            Integer position = mChangeIdPositions.get(id);
+            newReal = position == null ? -1 : position;
+        } else if (wrappedPosition == POSITION_UNCHANGED) {
+            newReal = LoopPositions.toRealPosition(oldPosition, mKnownRealCount);
+        } else {
+            newReal = wrappedPosition;
+        }
+        return newReal < newRealCount ? newReal : -1;
     }
 
     /*
@@ -16,14 +16,33 @@
 
 package android.support.v4.view;
 
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.util.AttributeSet;
+import android.util.Log;
+import android.view.AbsSavedState;
+import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewParent;
 
-import java.lang.reflect.Field;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+import cn.trinea.android.view.autoscrollviewpager.PagerMetrics;
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+import cn.trinea.android.view.autoscrollviewpager.core.PageOffsets;
+import cn.trinea.android.view.autoscrollviewpager.core.PopulateWindow;
 
 /**
  * override ViewPager's 'populate' medthod to prevent main thread from blocking
@@ -31,22 +50,88 @@ import java.util.Collections;
  */
 public class LoopCompatibleViewPager extends ViewPager {
     private static final int DRAW_ORDER_DEFAULT = 0;
+    private static final int DRAW_ORDER_FORWARD = 1;
+    private static final int DRAW_ORDER_REVERSE = 2;
+    /** items spread over more positions than this, e.g. pages kept while jumping, fall back to binary search **/
+    private static final int MAX_INDEXED_SPAN = 32;
+    /** default memory limit of the transition layers, about two 1080p pages **/
+    public static final int DEFAULT_TRANSITION_LAYER_MEMORY_LIMIT = 16 * 1024 * 1024;
+    /** default memory limit of the transition snapshots, about two 1080p pages **/
+    public static final int DEFAULT_TRANSITION_SNAPSHOT_MEMORY_LIMIT = 16 * 1024 * 1024;
+    private static final String TAG = "LoopCompatibleViewPager";
     private static final ViewPositionComparator sPositionComparator = new ViewPositionComparator();
     InfiniteLoopPagerAdapter mWrapperAdapter;
     PagerAdapter mActualAdapter;
     OnPageChangeListenerWrapper mWrapperOnPageChangeListener;
     OnPageChangeListener mActualOnPageChangeListener;
     boolean mIsLoopScroll = true;
-    Field mItems_Field;
-    private Field mCurItem_Field;
-    private Field mPopulatePending_Field;
-    private Field mExpectedAdapterCount_Field;
-    private Field mDrawingOrder_Field;
-    private Field mDrawingOrderedChildren_Field;
-    private Field mPageMargin_Field;
-    private Field mFirstOffset_Field;
-    private Field mLastOffset_Field;
-    private Field mNeedCalculatePageOffsets_Field;
+    /** ViewPager's own mItems list, it is final in ViewPager so one lookup per instance is enough **/
+    private ArrayList<ItemInfo> mInnerItems;
+    /** list installed as ViewPager's mDrawingOrderedChildren, so ViewPager never replaces it **/
+    private ArrayList<View> mInnerDrawingOrderedChildren;
+    private HierarchyChangeListenerWrapper mHierarchyChangeListenerWrapper;
+    /*
+     * Index of mInnerItems in loop mode, rebuilt on the first lookup after the items changed.
+     * mIndexByOffset[position - mIndexBase] is the index in mInnerItems of the item at position, or -1.
+     */
+    private int[] mIndexByOffset = new int[MAX_INDEXED_SPAN];
+    private int mIndexBase;
+    /** number of positions covered by mIndexByOffset, -1 if the items are spread too far and are binary searched **/
+    private int mIndexSpan;
+    private boolean mItemIndexDirty = true;
+    /** item of every page child in loop mode, kept as children are added and removed **/
+    private final IdentityHashMap<View, ItemInfo> mItemsByChild = new IdentityHashMap<View, ItemInfo>();
+    /** children with no item yet, added by instantiateItem before its item joins mInnerItems, or decor views **/
+    private final ArrayList<View> mUnindexedChildren = new ArrayList<View>();
+    /** mirror of ViewPager's mDrawingOrder, kept by {@link #setPageTransformer(boolean, PageTransformer)} **/
+    private int mDrawingOrder = DRAW_ORDER_DEFAULT;
+    /** whether the pages of a transition are drawn from hardware layers, see {@link #setUseTransitionLayers(boolean)} **/
+    private boolean mUseTransitionLayers = false;
+    private int mTransitionLayerMemoryLimit = DEFAULT_TRANSITION_LAYER_MEMORY_LIMIT;
+    /** pages promoted to hardware layers by this pager, in promotion order **/
+    private final ArrayList<View> mLayeredPages = new ArrayList<View>();
+    private int mLayeredBytes;
+    /** null unless pages are drawn from snapshots while the pager scrolls, see {@link #setUseTransitionSnapshots} **/
+    private TransitionSnapshotCache mSnapshotCache;
+    private int mTransitionSnapshotMemoryLimit = DEFAULT_TRANSITION_SNAPSHOT_MEMORY_LIMIT;
+    /** whether snapshots are drawn in place of their pages, from the start of a transition until it settles **/
+    private boolean mDrawingSnapshots = false;
+    /** scroll state reported to {@link #mWrapperOnPageChangeListener} **/
+    private int mScrollState = SCROLL_STATE_IDLE;
+    /** whether offscreen pages of a new adapter wait for the main thread to be idle, default is false **/
+    private boolean mDeferOffscreenPages = false;
+    /** populate keeps only the pages needed to fill the width until the offscreen pages are filled **/
+    private boolean mOffscreenDeferred = false;
+    private MessageQueue.IdleHandler mFillOffscreenHandler;
+    /** real position restored before an adapter was set in loop mode, -1 if none **/
+    private int mRestoredRealItem = -1;
+    /** byte budget of the retained pages, 0 for none, see {@link #setRetainedPageMemoryLimit(int)} **/
+    private int mRetainedPageMemoryLimit = 0;
+    /** last level passed to {@link #trimMemory(int)}, 0 if the window is not trimmed **/
+    private int mTrimMemoryLevel = 0;
+    /** 1 if the current item last moved to a higher position, -1 if to a lower one **/
+    private int mScrollDirection = 1;
+    /** page limits on the left and the right of the current item for the running populate **/
+    private final int[] mSideLimits = new int[2];
+    /** first and last offset of the running populate **/
+    private final float[] mFirstLastOffsets = new float[2];
+    /** first and last offset last written to ViewPager, only valid while mOffsetsWritten **/
+    private float mWrittenFirstOffset;
+    private float mWrittenLastOffset;
+    private boolean mOffsetsWritten = false;
+    /** mirror of ViewPager's mExpectedAdapterCount in loop mode, set where ViewPager sets it, before it populates **/
+    private int mExpectedAdapterCount;
+    /** {@link #mInnerItems} as walked by the core, see {@link PopulateWindow#fill} **/
+    private final ItemPages mPages = new ItemPages();
+    private ComponentCallbacks2 mComponentCallbacks;
+    /** page sizes of an adapter set without loop mode **/
+    private final PopulateWindow.PageSizes mActualPageSizes = new PopulateWindow.PageSizes() {
+
+        @Override
+        public int getPageBytes(int position) {
+            return ((InfiniteLoopPagerAdapter.PageSizeEstimator) mActualAdapter).estimatePageBytes(position);
+        }
+    };
 
 
     public LoopCompatibleViewPager(Context context) {
@@ -59,52 +144,19 @@ public class LoopCompatibleViewPager extends ViewPager {
         initFields();
     }
 
+    @SuppressWarnings("unchecked")
     void initFields() {
-        try {
-            mCurItem_Field = ViewPager.class.getDeclaredField("mCurItem");
-            if (mCurItem_Field != null) {
-                mCurItem_Field.setAccessible(true);
-            }
-            mPopulatePending_Field = ViewPager.class.getDeclaredField("mPopulatePending");
-            if (mPopulatePending_Field != null) {
-                mPopulatePending_Field.setAccessible(true);
-            }
-            mExpectedAdapterCount_Field = ViewPager.class.getDeclaredField("mExpectedAdapterCount");
-            if (mExpectedAdapterCount_Field != null) {
-                mExpectedAdapterCount_Field.setAccessible(true);
-            }
-            mItems_Field = ViewPager.class.getDeclaredField("mItems");
-            if (mItems_Field != null) {
-                mItems_Field.setAccessible(true);
-            }
-            mDrawingOrder_Field = ViewPager.class.getDeclaredField("mDrawingOrder");
-            if (mDrawingOrder_Field != null) {
-                mDrawingOrder_Field.setAccessible(true);
-            }
-            mDrawingOrderedChildren_Field = ViewPager.class.getDeclaredField("mDrawingOrderedChildren");
-            if (mDrawingOrderedChildren_Field != null) {
-                mDrawingOrderedChildren_Field.setAccessible(true);
-            }
-            mPageMargin_Field = ViewPager.class.getDeclaredField("mPageMargin");
-            if (mPageMargin_Field != null) {
-                mPageMargin_Field.setAccessible(true);
-            }
-            mFirstOffset_Field = ViewPager.class.getDeclaredField("mFirstOffset");
-            if (mFirstOffset_Field != null) {
-                mFirstOffset_Field.setAccessible(true);
-            }
-            mLastOffset_Field = ViewPager.class.getDeclaredField("mLastOffset");
-
-            if (mLastOffset_Field != null) {
-                mLastOffset_Field.setAccessible(true);
-            }
-            mNeedCalculatePageOffsets_Field = ViewPager.class.getDeclaredField("mNeedCalculatePageOffsets");
-            if (mNeedCalculatePageOffsets_Field != null) {
-                mNeedCalculatePageOffsets_Field.setAccessible(true);
-            }
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
+        mInnerItems = (ArrayList<ItemInfo>) ViewPagerFields.get(ViewPagerFields.ITEMS, this);
+        if (mInnerItems == null) {
+            mInnerItems = new ArrayList<ItemInfo>();
         }
+        mInnerDrawingOrderedChildren = new ArrayList<View>();
+        ViewPagerFields.set(ViewPagerFields.DRAWING_ORDERED_CHILDREN, this, mInnerDrawingOrderedChildren);
+        mHierarchyChangeListenerWrapper = new HierarchyChangeListenerWrapper();
+        super.setOnHierarchyChangeListener(mHierarchyChangeListenerWrapper);
+        // always installed, loop mode needs to know when the pager settles
+        mWrapperOnPageChangeListener = new OnPageChangeListenerWrapper();
+        super.setOnPageChangeListener(mWrapperOnPageChangeListener);
     }
 
     /**
@@ -126,25 +178,410 @@ public class LoopCompatibleViewPager extends ViewPager {
      * @param adapter Adapter to use
      */
     public void setAdapter(PagerAdapter adapter) {
+        cancelDeferredFill();
+        // ViewPager clears mItems and may populate before returning, the index must not survive the clear
+        mItemIndexDirty = true;
+        // only loop mode walks the window itself, ViewPager always fills the neighbours
+        mOffscreenDeferred = mDeferOffscreenPages && adapter != null && isLoopScroll();
+        if (mDeferOffscreenPages && adapter != null && !isLoopScroll()) {
+            Log.w(TAG, "deferred offscreen pages need loop mode, all pages are instantiated now");
+        }
         if(isLoopScroll()) {
-            mActualAdapter = adapter;
-            mWrapperAdapter = new InfiniteLoopPagerAdapter(adapter);
-            super.setAdapter(mWrapperAdapter);
-            getInnerItems().clear();
-            setInnerCurrentItem(mWrapperAdapter.getCount() / 2 - (mWrapperAdapter.getCount() / 2) % mWrapperAdapter.getRealCount() );
-            setCurrentItem(0);
+            final InfiniteLoopPagerAdapter wrapperAdapter = new InfiniteLoopPagerAdapter(adapter);
+            mExpectedAdapterCount = wrapperAdapter.getCount();
+            final boolean isRestoring = mRestoredRealItem >= 0;
+            final int realItem = isRestoring && mRestoredRealItem < wrapperAdapter.getRealCount()
+                    ? mRestoredRealItem : 0;
+            mRestoredRealItem = -1;
+            if (isRestoring && ViewPagerFields.RESTORED_CUR_ITEM != null) {
+                // ViewPager already holds a restored item to select while attaching the adapter, it is moved to the
+                // centre cycle so that window is the only one populated
+                mActualAdapter = adapter;
+                mWrapperAdapter = wrapperAdapter;
+                ViewPagerFields.setInt(ViewPagerFields.RESTORED_CUR_ITEM, this,
+                        wrapperAdapter.getCenterPosition() + realItem);
+                super.setAdapter(wrapperAdapter);
+            } else {
+                if (super.getAdapter() != null) {
+                    // destroys the old pages and resets the current item to 0
+                    super.setAdapter(null);
+                }
+                mActualAdapter = adapter;
+                mWrapperAdapter = wrapperAdapter;
+                // kept by ViewPager when no adapter was set, so the centre cycle is the only window populated
+                setInnerCurrentItem(wrapperAdapter.getCenterPosition() + realItem);
+                super.setAdapter(wrapperAdapter);
+            }
         }else {
             mActualAdapter = adapter;
             mWrapperAdapter = null;
             super.setAdapter(mActualAdapter);
         }
+        mItemIndexDirty = true;
+    }
+
+    /**
+     * whether offscreen pages of a new adapter are instantiated when the main thread is idle, default is false
+     */
+    public boolean isDeferOffscreenPages() {
+        return mDeferOffscreenPages;
+    }
+
+    /**
+     * set whether a new adapter only gets the pages visible at the current position, usually the current page alone,
+     * instantiated at first, default is false. The neighbours and the rest of the offscreen window are filled once the
+     * main thread is idle, or right away when the user touches the pager, a fake drag begins or the current item
+     * changes, so a neighbour is never missing when it scrolls in. Only in loop mode, takes effect from the next
+     * {@link #setAdapter(PagerAdapter)}.
+     *
+     * @param deferOffscreenPages
+     */
+    public void setDeferOffscreenPages(boolean deferOffscreenPages) {
+        mDeferOffscreenPages = deferOffscreenPages;
+        if (!mDeferOffscreenPages) {
+            fillDeferredPages();
+        }
+    }
+
+    /**
+     * instantiate the offscreen pages held back by {@link #setDeferOffscreenPages(boolean)} now
+     */
+    public void fillDeferredPages() {
+        if (!mOffscreenDeferred) {
+            return;
+        }
+        cancelDeferredFill();
+        mOffscreenDeferred = false;
+        if (super.getAdapter() != null) {
+            populate();
+        }
+    }
+
+    /**
+     * get memory limit in bytes of the pages kept around the current page, 0 means no limit, default is 0
+     */
+    public int getRetainedPageMemoryLimit() {
+        return mRetainedPageMemoryLimit;
+    }
+
+    /**
+     * set memory limit in bytes of the pages kept around the current page, 0 means no limit, default is 0. Only
+     * adapters implementing {@link InfiniteLoopPagerAdapter.PageSizeEstimator} are limited. The current page and its
+     * direct neighbours are always kept, further offscreen pages, up to {@link #getOffscreenPageLimit()} on each
+     * side, are kept while they fit, pages ahead in the scroll direction first. Only in loop mode, without it
+     * ViewPager populates the pages itself and keeps {@link #getOffscreenPageLimit()} on each side.
+     *
+     * @param retainedPageMemoryLimit
+     */
+    public void setRetainedPageMemoryLimit(int retainedPageMemoryLimit) {
+        retainedPageMemoryLimit = Math.max(0, retainedPageMemoryLimit);
+        if (retainedPageMemoryLimit == mRetainedPageMemoryLimit) {
+            return;
+        }
+        mRetainedPageMemoryLimit = retainedPageMemoryLimit;
+        if (super.getAdapter() != null) {
+            populate();
+        }
+    }
+
+    /**
+     * @return estimated bytes of the pages instantiated now, -1 if the adapter is not a
+     *         {@link InfiniteLoopPagerAdapter.PageSizeEstimator}
+     */
+    public int getRetainedPageBytes() {
+        final PopulateWindow.PageSizes sizes = getPageSizes();
+        if (sizes == null) {
+            return -1;
+        }
+        final ArrayList<ItemInfo> items = mInnerItems;
+        long bytes = 0;
+        for (int i = 0; i < items.size(); i++) {
+            bytes += Math.max(0, sizes.getPageBytes(items.get(i).position));
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * @return last level passed to {@link #trimMemory(int)}, 0 if the pages kept are not trimmed
+     */
+    public int getTrimMemoryLevel() {
+        return mTrimMemoryLevel;
+    }
+
+    /**
+     * Shrink the pages kept on each side of the current page for a {@link ComponentCallbacks2#onTrimMemory(int)}
+     * level, in loop mode only, like {@link #setRetainedPageMemoryLimit(int)}. The pager receives the levels of its
+     * application itself while attached, on API 14 and above. 0 restores the full window, which also happens when
+     * the window of the pager is shown again or the pager is attached.
+     * <ul>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_MODERATE} keeps three quarters of
+     * {@link #getOffscreenPageLimit()}</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_LOW} keeps half of it, and drops the transition
+     * snapshots</li>
+     * <li>{@link ComponentCallbacks2#TRIM_MEMORY_RUNNING_CRITICAL} and above keep the direct neighbours only</li>
+     * </ul>
+     *
+     * @param level
+     */
+    public void trimMemory(int level) {
+        level = Math.max(0, level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW && mSnapshotCache != null && !mDrawingSnapshots) {
+            mSnapshotCache.clear();
+        }
+        if (level == mTrimMemoryLevel) {
+            return;
+        }
+        mTrimMemoryLevel = level;
+        if (super.getAdapter() != null) {
+            populate();
+        }
+    }
+
+    /**
+     * @return pageLimit shrunk for {@link #mTrimMemoryLevel}
+     */
+    private int trimPageLimit(int pageLimit) {
+        if (mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            return Math.min(1, pageLimit);
+        } else if (mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            return (pageLimit + 1) / 2;
+        } else if (mTrimMemoryLevel >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE) {
+            return pageLimit - pageLimit / 4;
+        }
+        return pageLimit;
+    }
+
+    /**
+     * @return page sizes of the adapter, null if it does not estimate them
+     */
+    private PopulateWindow.PageSizes getPageSizes() {
+        final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+        if (adapter != null) {
+            return adapter.hasPageSizes() ? adapter : null;
+        }
+        return mActualAdapter instanceof InfiniteLoopPagerAdapter.PageSizeEstimator ? mActualPageSizes : null;
+    }
+
+    /**
+     * fill {@link #mSideLimits} for a populate to currentItem
+     */
+    private void updateSideLimits(int currentItem, int pageLimit) {
+        pageLimit = trimPageLimit(pageLimit);
+        final PopulateWindow.PageSizes sizes = getPageSizes();
+        final PagerAdapter adapter = super.getAdapter();
+        if (mRetainedPageMemoryLimit <= 0 || sizes == null || adapter == null) {
+            mSideLimits[0] = pageLimit;
+            mSideLimits[1] = pageLimit;
+            return;
+        }
+        PopulateWindow.sideLimits(currentItem, pageLimit, adapter.getCount(), mScrollDirection, sizes,
+                mRetainedPageMemoryLimit, mSideLimits);
+    }
+
+    private void registerComponentCallbacks() {
+        if (android.os.Build.VERSION.SDK_INT < 14 || mComponentCallbacks != null) {
+            return;
+        }
+        mComponentCallbacks = new ComponentCallbacks2() {
+
+            @Override
+            public void onTrimMemory(int level) {
+                trimMemory(level);
+            }
+
+            @Override
+            public void onConfigurationChanged(Configuration newConfig) {
+            }
+
+            @Override
+            public void onLowMemory() {
+                trimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE);
+            }
+        };
+        getContext().getApplicationContext().registerComponentCallbacks(mComponentCallbacks);
+    }
+
+    private void unregisterComponentCallbacks() {
+        if (mComponentCallbacks != null) {
+            getContext().getApplicationContext().unregisterComponentCallbacks(mComponentCallbacks);
+            mComponentCallbacks = null;
+        }
+    }
+
+    private void scheduleDeferredFill() {
+        if (mFillOffscreenHandler != null || getWindowToken() == null) {
+            // scheduled again once attached
+            return;
+        }
+        mFillOffscreenHandler = new MessageQueue.IdleHandler() {
+
+            @Override
+            public boolean queueIdle() {
+                mFillOffscreenHandler = null;
+                fillDeferredPages();
+                return false;
+            }
+        };
+        Looper.myQueue().addIdleHandler(mFillOffscreenHandler);
+    }
+
+    private void cancelDeferredFill() {
+        if (mFillOffscreenHandler != null) {
+            Looper.myQueue().removeIdleHandler(mFillOffscreenHandler);
+            mFillOffscreenHandler = null;
+        }
+    }
+
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        if (mOffscreenDeferred && ev.getAction() == MotionEvent.ACTION_DOWN) {
+            // a drag may start with this gesture
+            fillDeferredPages();
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    @Override
+    public boolean beginFakeDrag() {
+        fillDeferredPages();
+        return super.beginFakeDrag();
+    }
+
+    @Override
+    public Parcelable onSaveInstanceState() {
+        final Parcelable superState = super.onSaveInstanceState();
+        if (!(superState instanceof ViewPager.SavedState)) {
+            return superState;
+        }
+        final LoopSavedState state = new LoopSavedState((ViewPager.SavedState) superState);
+        state.realPosition = getCurrentItem();
+        onSaveExtraState(state.extras);
+        return state;
+    }
+
+    @Override
+    public void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof LoopSavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        final LoopSavedState ss = (LoopSavedState) state;
+        final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+        if (adapter != null && adapter.getRealCount() > 0) {
+            // the saved virtual position belongs to the wrapper of the saved instance, the real position is moved into
+            // the cycle of the current item so the window is kept if the page is already there
+            final int realPosition = Math.min(ss.realPosition, adapter.getRealCount() - 1);
+            final int currentItem = getInnerCurrentItem();
+            ss.position = currentItem - adapter.toRealPosition(currentItem) + realPosition;
+        } else if (adapter == null && isLoopScroll()) {
+            // picked up by setAdapter
+            mRestoredRealItem = ss.realPosition;
+        }
+        super.onRestoreInstanceState(ss);
+        onRestoreExtraState(ss.extras);
+    }
+
+    /**
+     * called when the instance state is saved, for subclasses to keep their own state
+     *
+     * @param extras saved along with the real position of the current item
+     */
+    protected void onSaveExtraState(Bundle extras) {
+    }
+
+    /**
+     * called when the instance state is restored, after the current item
+     *
+     * @param extras filled by {@link #onSaveExtraState(Bundle)}
+     */
+    protected void onRestoreExtraState(Bundle extras) {
     }
 
     @Override
     public void setOnPageChangeListener(OnPageChangeListener listener) {
         mActualOnPageChangeListener = listener;
-        mWrapperOnPageChangeListener = new OnPageChangeListenerWrapper();
-        super.setOnPageChangeListener(mWrapperOnPageChangeListener);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        registerComponentCallbacks();
+        // levels reported while detached are not undone by anything else
+        mTrimMemoryLevel = 0;
+        if (mOffscreenDeferred) {
+            scheduleDeferredFill();
+        }
+        // the current item may have moved while detached without ever settling
+        if (mScrollState == SCROLL_STATE_IDLE) {
+            recenterIfNeeded();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // the pager may never report idle for a transition interrupted by the detach
+        demoteTransitionLayers();
+        mDrawingSnapshots = false;
+        if (mSnapshotCache != null) {
+            mSnapshotCache.clear();
+        }
+        cancelDeferredFill();
+        unregisterComponentCallbacks();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == VISIBLE && mTrimMemoryLevel > 0) {
+            // the user is back, pages are worth keeping again
+            trimMemory(0);
+        }
+    }
+
+    /**
+     * In loop mode, move the current item back to the centre cycle when it is close to either end of the virtual
+     * range. Pages keep their instantiated views, only their virtual positions and offsets are shifted, and the
+     * scroll position is shifted by the same amount, so nothing moves on screen.
+     */
+    void recenterIfNeeded() {
+        final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+        if (adapter == null || getInnerPopulatePending()) {
+            return;
+        }
+        final int currentItem = getInnerCurrentItem();
+        final int target = LoopPositions.recenterPosition(currentItem, adapter.getCount(), adapter.getRealCount(),
+                getOffscreenPageLimit() + 1);
+        if (target == currentItem) {
+            return;
+        }
+        final ArrayList<ItemInfo> items = mInnerItems;
+        final ItemInfo curInfo = infoForPosition(currentItem);
+        if (curInfo == null) {
+            // nothing instantiated yet, the next populate starts from the new position
+            setInnerCurrentItem(target);
+            return;
+        }
+        final int delta = target - currentItem;
+        final float offsetDelta = curInfo.offset;
+        for (int i = 0; i < items.size(); i++) {
+            final ItemInfo ii = items.get(i);
+            ii.position += delta;
+            ii.offset -= offsetDelta;
+        }
+        final int childCount = getChildCount();
+        for (int i = 0; i < childCount; i++) {
+            final LayoutParams lp = (LayoutParams) getChildAt(i).getLayoutParams();
+            if (!lp.isDecor) {
+                lp.position += delta;
+            }
+        }
+        mItemIndexDirty = true;
+        setInnerCurrentItem(target);
+        calculatePageOffsets(items.indexOf(curInfo), null);
+        scrollTo((int) (getClientWidth() * curInfo.offset), getScrollY());
+        // children are laid out from the item offsets
+        requestLayout();
     }
 
 
@@ -158,9 +595,7 @@ public class LoopCompatibleViewPager extends ViewPager {
      */
     public void setCurrentItem(int item) {
         if(getWrapperAdapter()!=null) {
-            if (item < getWrapperAdapter().getRealCount()) {
-                item = getWrapperAdapter().getCount() / 2 - (getWrapperAdapter().getCount() / 2) % getWrapperAdapter().getRealCount() + item;
-            }
+            item = getWrapperAdapter().toVirtualPosition(item);
         }
         super.setCurrentItem(item);
     }
@@ -173,9 +608,7 @@ public class LoopCompatibleViewPager extends ViewPager {
      */
     public void setCurrentItem(int item, boolean smoothScroll) {
         if(getWrapperAdapter()!=null) {
-            if (item < getWrapperAdapter().getRealCount()) {
-                item = getWrapperAdapter().getCount() / 2 - (getWrapperAdapter().getCount() / 2) % getWrapperAdapter().getRealCount() + item;
-            }
+            item = getWrapperAdapter().toVirtualPosition(item);
         }
         super.setCurrentItem(item, smoothScroll);
     }
@@ -183,7 +616,7 @@ public class LoopCompatibleViewPager extends ViewPager {
     @Override
     public int getCurrentItem() {
         if(getWrapperAdapter()!=null) {
-            return super.getCurrentItem() % getWrapperAdapter().getRealCount();
+            return getWrapperAdapter().toRealPosition(super.getCurrentItem());
         }else {
             return super.getCurrentItem();
         }
@@ -203,24 +636,90 @@ public class LoopCompatibleViewPager extends ViewPager {
         return mIsLoopScroll;
     }
 
+    @Override
+    public void setPageTransformer(boolean reverseDrawingOrder, PageTransformer transformer) {
+        // ViewPager ignores transformers before honeycomb, keep the same condition for the mirrored drawing order
+        if (android.os.Build.VERSION.SDK_INT >= 11) {
+            mDrawingOrder = transformer == null ? DRAW_ORDER_DEFAULT
+                    : (reverseDrawingOrder ? DRAW_ORDER_REVERSE : DRAW_ORDER_FORWARD);
+        }
+        super.setPageTransformer(reverseDrawingOrder, transformer);
+    }
+
+    @Override
+    void dataSetChanged() {
+        if (mSnapshotCache != null) {
+            // pages may be rebound in place
+            mSnapshotCache.invalidateAll();
+        }
+        final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+        if (adapter == null) {
+            super.dataSetChanged();
+            return;
+        }
+        // lets the wrapper map every page to its new virtual position
+        adapter.beginDataSetChange(getInnerItems(), getInnerCurrentItem());
+        // ViewPager removes, moves and sorts mItems and then populates, all before returning
+        mItemIndexDirty = true;
+        mExpectedAdapterCount = adapter.getCount();
+        int current = -1;
+        try {
+            super.dataSetChanged();
+        } finally {
+            mItemIndexDirty = true;
+            current = adapter.endDataSetChange();
+        }
+        // the current page was removed, ViewPager only clamped the old position
+        if (current >= 0 && current != getInnerCurrentItem()) {
+            setCurrentItemInternal(current, false, true);
+        }
+    }
+
     @Override
     void populate(int newCurrentItem) {
-        if(getWrapperAdapter()==null){
+        final long beginTime = PagerMetrics.begin(PagerMetrics.POPULATE);
+        try {
+            final int oldCurrentItem = getInnerCurrentItem();
+            if (mOffscreenDeferred && newCurrentItem != oldCurrentItem && !mInnerItems.isEmpty()) {
+                // the pager is about to move, its neighbours are needed now
+                cancelDeferredFill();
+                mOffscreenDeferred = false;
+            }
+            if (newCurrentItem != oldCurrentItem) {
+                mScrollDirection = newCurrentItem > oldCurrentItem ? 1 : -1;
+            }
+            final int pageLimit = getOffscreenPageLimit();
+            // a deferred pass keeps no offscreen pages, populateItems leaves out the neighbours as well
+            updateSideLimits(newCurrentItem, mOffscreenDeferred ? 0 : pageLimit);
+            populateItems(newCurrentItem);
+            if (mOffscreenDeferred) {
+                scheduleDeferredFill();
+            }
+        } finally {
+            // populateItems throws when the adapter changed without notifyDataSetChanged
+            PagerMetrics.end(PagerMetrics.POPULATE, beginTime);
+        }
+    }
+
+    private void populateItems(int newCurrentItem) {
+        final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+        if(adapter==null){
+            // ViewPager writes its own first and last offsets
+            mOffsetsWritten = false;
             super.populate(newCurrentItem);
             return;
         }
+        // resolved once per pass, every access below is a plain local read
+        final ArrayList<ItemInfo> items = mInnerItems;
         ItemInfo oldCurInfo = null;
         int focusDirection = View.FOCUS_FORWARD;
-        if (getInnerCurrentItem() != newCurrentItem) {
-            focusDirection = getInnerCurrentItem() < newCurrentItem ? View.FOCUS_RIGHT : View.FOCUS_LEFT;
-            oldCurInfo = infoForPosition(getInnerCurrentItem());
+        final int oldCurrentItem = getInnerCurrentItem();
+        if (oldCurrentItem != newCurrentItem) {
+            focusDirection = oldCurrentItem < newCurrentItem ? View.FOCUS_RIGHT : View.FOCUS_LEFT;
+            oldCurInfo = infoForPosition(oldCurrentItem);
             setInnerCurrentItem(newCurrentItem);
         }
-
-        if (getWrapperAdapter() == null) {
-            sortChildDrawingOrder();
-            return;
-        }
+        final int currentItem = newCurrentItem;
 
         // Bail now if we are waiting to populate.  This is to hold off
         // on creating views from the time the user releases their finger to
@@ -238,14 +737,14 @@ public class LoopCompatibleViewPager extends ViewPager {
             return;
         }
 
-        getWrapperAdapter().startUpdate(this);
+        adapter.startUpdate(this);
 
-        final int pageLimit = getOffscreenPageLimit();
-        final int startPos = Math.max(0, getInnerCurrentItem() - pageLimit);
-        final int N = getWrapperAdapter().getCount();
-        final int endPos = Math.min(N - 1, getInnerCurrentItem() + pageLimit);
+        final int startPos = PopulateWindow.startPosition(currentItem, mSideLimits[0]);
+        final int N = adapter.getCount();
+        final int endPos = PopulateWindow.endPosition(currentItem, mSideLimits[1], N);
 
-        if (N != getInnerExpectedAdapterCount()) {
+        final int expectedAdapterCount = getInnerExpectedAdapterCount();
+        if (N != expectedAdapterCount) {
             String resName;
             try {
                 resName = getResources().getResourceName(getId());
@@ -254,100 +753,34 @@ public class LoopCompatibleViewPager extends ViewPager {
             }
             throw new IllegalStateException("The application's PagerAdapter changed the adapter's" +
                     " contents without calling PagerAdapter#notifyDataSetChanged!" +
-                    " Expected adapter item count: " + getInnerExpectedAdapterCount() + ", found: " + N +
+                    " Expected adapter item count: " + expectedAdapterCount + ", found: " + N +
                     " Pager id: " + resName +
                     " Pager class: " + getClass() +
-                    " Problematic adapter: " + getWrapperAdapter().getClass());
+                    " Problematic adapter: " + adapter.getClass());
         }
 
         // Locate the currently focused item or add it if needed.
-        int curIndex = -1;
-        ItemInfo curItem = null;
-        for (curIndex = 0; curIndex < getInnerItems().size(); curIndex++) {
-            final ItemInfo ii = getInnerItems().get(curIndex);
-            if (ii.position >= getInnerCurrentItem()) {
-                if (ii.position == getInnerCurrentItem()) curItem = ii;
-                break;
-            }
-        }
-
-        if (curItem == null && N > 0) {
-            curItem = addNewItem(getInnerCurrentItem(), curIndex);
-        }
+        int curIndex = PopulateWindow.addCurrent(mPages, currentItem, N);
+        final ItemInfo curItem = curIndex >= 0 ? items.get(curIndex) : null;
 
         // Fill 3x the available width or up to the number of offscreen
         // pages requested to either side, whichever is larger.
         // If we have no current item we have no work to do.
         if (curItem != null) {
-            float extraWidthLeft = 0.f;
-            int itemIndex = curIndex - 1;
-            ItemInfo ii = itemIndex >= 0 ? getInnerItems().get(itemIndex) : null;
             final int clientWidth = getClientWidth();
-            final float leftWidthNeeded = clientWidth <= 0 ? 0 :
+            // a deferred pass keeps only the pages visible at the current position, not the neighbours
+            final float leftWidthNeeded = clientWidth <= 0 || mOffscreenDeferred ? 0 :
                     2.f - curItem.widthFactor + (float) getPaddingLeft() / (float) clientWidth;
-            int checkStart = Math.max(0,getInnerCurrentItem()-getWrapperAdapter().getRealCount());//reduce execute times,when loop viewpager is available
-            for (int pos = getInnerCurrentItem() - 1; pos >= checkStart; pos--) {
-                if (extraWidthLeft >= leftWidthNeeded && pos < startPos) {
-                    if (ii == null) {
-                        break;
-                    }
-                    if (pos == ii.position && !ii.scrolling) {
-                        getInnerItems().remove(itemIndex);
-                        getWrapperAdapter().destroyItem(this, pos, ii.object);
-
-                        itemIndex--;
-                        curIndex--;
-                        ii = itemIndex >= 0 ? getInnerItems().get(itemIndex) : null;
-                    }
-                } else if (ii != null && pos == ii.position) {
-                    extraWidthLeft += ii.widthFactor;
-                    itemIndex--;
-                    ii = itemIndex >= 0 ? getInnerItems().get(itemIndex) : null;
-                } else {
-                    ii = addNewItem(pos, itemIndex + 1);
-                    extraWidthLeft += ii.widthFactor;
-                    curIndex++;
-                    ii = itemIndex >= 0 ? getInnerItems().get(itemIndex) : null;
-                }
-            }
-
-            float extraWidthRight = curItem.widthFactor;
-            itemIndex = curIndex + 1;
-            if (extraWidthRight < 2.f) {
-                ii = itemIndex < getInnerItems().size() ? getInnerItems().get(itemIndex) : null;
-                final float rightWidthNeeded = clientWidth <= 0 ? 0 :
-                        (float) getPaddingRight() / (float) clientWidth + 2.f;
-                int checkEnd = Math.min(N,getInnerCurrentItem()+getWrapperAdapter().getRealCount());//reduce execute times,when loop viewpager is available
-                for (int pos = getInnerCurrentItem() + 1; pos < checkEnd; pos++) {
-                    if (extraWidthRight >= rightWidthNeeded && pos > endPos) {
-                        if (ii == null) {
-                            break;
-                        }
-                        if (pos == ii.position && !ii.scrolling) {
-                            getInnerItems().remove(itemIndex);
-                            getWrapperAdapter().destroyItem(this, pos, ii.object);
-                            ii = itemIndex < getInnerItems().size() ? getInnerItems().get(itemIndex) : null;
-                        }
-                    } else if (ii != null && pos == ii.position) {
-                        extraWidthRight += ii.widthFactor;
-                        itemIndex++;
-                        ii = itemIndex < getInnerItems().size() ? getInnerItems().get(itemIndex) : null;
-                    } else {
-                        ii = addNewItem(pos, itemIndex);
-                        itemIndex++;
-                        extraWidthRight += ii.widthFactor;
-                        ii = itemIndex < getInnerItems().size() ? getInnerItems().get(itemIndex) : null;
-                    }
-                }
-            }
-
-            calculatePageOffsets(curItem, curIndex, oldCurInfo);
+            final float rightWidthNeeded = clientWidth <= 0 ? 0 :
+                    (float) getPaddingRight() / (float) clientWidth + (mOffscreenDeferred ? 1.f : 2.f);
+            curIndex = PopulateWindow.fill(mPages, curIndex, N, startPos, endPos, leftWidthNeeded, rightWidthNeeded);
+            calculatePageOffsets(curIndex, oldCurInfo);
         }
 
 
-        getWrapperAdapter().setPrimaryItem(this, getInnerCurrentItem(), curItem != null ? curItem.object : null);
+        adapter.setPrimaryItem(this, currentItem, curItem != null ? curItem.object : null);
 
-        getWrapperAdapter().finishUpdate(this);
+        adapter.finishUpdate(this);
 
         // Check width measurement of current pages and drawing sort order.
         // Update LayoutParams as needed.
@@ -370,11 +803,11 @@ public class LoopCompatibleViewPager extends ViewPager {
         if (hasFocus()) {
             View currentFocused = findFocus();
             ItemInfo ii = currentFocused != null ? infoForAnyChild(currentFocused) : null;
-            if (ii == null || ii.position != getInnerCurrentItem()) {
+            if (ii == null || ii.position != currentItem) {
                 for (int i=0; i<getChildCount(); i++) {
                     View child = getChildAt(i);
                     ii = infoForChild(child);
-                    if (ii != null && ii.position == getInnerCurrentItem()) {
+                    if (ii != null && ii.position == currentItem) {
                         if (child.requestFocus(focusDirection)) {
                             break;
                         }
@@ -384,229 +817,595 @@ public class LoopCompatibleViewPager extends ViewPager {
         }
     }
 
-    private void sortChildDrawingOrder() {
-        if (getInnerDrawingOrder() != DRAW_ORDER_DEFAULT) {
-            if (getInnerDrawingOrderedChildren() == null) {
-                setInnerDrawingOrderedChildren();
-            } else {
-                getInnerDrawingOrderedChildren().clear();
+    @Override
+    ItemInfo addNewItem(int position, int index) {
+        mItemIndexDirty = true;
+        final ItemInfo ii = super.addNewItem(position, index);
+        indexChildrenOf(ii);
+        return ii;
+    }
+
+    @Override
+    ItemInfo infoForPosition(int position) {
+        if (getWrapperAdapter() == null) {
+            return super.infoForPosition(position);
+        }
+        final int index = indexOfPosition(position);
+        return index >= 0 ? mInnerItems.get(index) : null;
+    }
+
+    @Override
+    ItemInfo infoForChild(View child) {
+        if (getWrapperAdapter() == null) {
+            return super.infoForChild(child);
+        }
+        ItemInfo ii = mItemsByChild.get(child);
+        if (ii != null && isPopulated(ii)) {
+            return ii;
+        }
+        // the page outlived its item or came back for another one without being added again
+        ii = super.infoForChild(child);
+        if (ii != null) {
+            mItemsByChild.put(child, ii);
+            mUnindexedChildren.remove(child);
+        }
+        return ii;
+    }
+
+    /**
+     * @return whether ii is still one of mInnerItems
+     */
+    private boolean isPopulated(ItemInfo ii) {
+        final ArrayList<ItemInfo> items = mInnerItems;
+        final int index = indexOfPosition(ii.position);
+        for (int i = index; i >= 0 && i < items.size() && items.get(i).position == ii.position; i++) {
+            if (items.get(i) == ii) {
+                return true;
             }
-            final int childCount = getChildCount();
-            for (int i = 0; i < childCount; i++) {
-                final View child = getChildAt(i);
-                getInnerDrawingOrderedChildren().add(child);
-            }
-            Collections.sort(getInnerDrawingOrderedChildren(), sPositionComparator);
-        }
-    }
-
-    private void calculatePageOffsets(ItemInfo curItem, int curIndex, ItemInfo oldCurInfo) {
-        final int N = getWrapperAdapter().getCount();
-        final int width = getClientWidth();
-        final float marginOffset = width > 0 ? (float) getInnerPageMargin() / width : 0;
-        // Fix up offsets for later layout.
-        if (oldCurInfo != null) {
-            final int oldCurPosition = oldCurInfo.position;
-            // Base offsets off of oldCurInfo.
-            if (oldCurPosition < curItem.position) {
-                int itemIndex = 0;
-                ItemInfo ii = null;
-                float offset = oldCurInfo.offset + oldCurInfo.widthFactor + marginOffset;
-                for (int pos = oldCurPosition + 1;
-                     pos <= curItem.position && itemIndex < getInnerItems().size(); pos++) {
-                    ii = getInnerItems().get(itemIndex);
-                    while (pos > ii.position && itemIndex < getInnerItems().size() - 1) {
-                        itemIndex++;
-                        ii = getInnerItems().get(itemIndex);
-                    }
-                    while (pos < ii.position) {
-                        // We don't have an item populated for this,
-                        // ask the adapter for an offset.
-                        offset += getWrapperAdapter().getPageWidth(pos) + marginOffset;
-                        pos++;
-                    }
-                    ii.offset = offset;
-                    offset += ii.widthFactor + marginOffset;
-                }
-            } else if (oldCurPosition > curItem.position) {
-                int itemIndex = getInnerItems().size() - 1;
-                ItemInfo ii = null;
-                float offset = oldCurInfo.offset;
-                for (int pos = oldCurPosition - 1;
-                     pos >= curItem.position && itemIndex >= 0; pos--) {
-                    ii = getInnerItems().get(itemIndex);
-                    while (pos < ii.position && itemIndex > 0) {
-                        itemIndex--;
-                        ii = getInnerItems().get(itemIndex);
-                    }
-                    while (pos > ii.position) {
-                        // We don't have an item populated for this,
-                        // ask the adapter for an offset.
-                        offset -= getWrapperAdapter().getPageWidth(pos) + marginOffset;
-                        pos--;
-                    }
-                    offset -= ii.widthFactor + marginOffset;
-                    ii.offset = offset;
-                }
+        }
+        return false;
+    }
+
+    /**
+     * @return index in mInnerItems of the first item at position, -1 if there is none
+     */
+    private int indexOfPosition(int position) {
+        if (mItemIndexDirty) {
+            rebuildItemIndex();
+        }
+        if (mIndexSpan < 0) {
+            final int index = lowerBound(position);
+            return index < mInnerItems.size() && mInnerItems.get(index).position == position ? index : -1;
+        }
+        final int offset = position - mIndexBase;
+        return offset >= 0 && offset < mIndexSpan ? mIndexByOffset[offset] : -1;
+    }
+
+    /**
+     * @return index of the first item whose position is not less than position, the size if there is none
+     */
+    private int lowerBound(int position) {
+        final ArrayList<ItemInfo> items = mInnerItems;
+        int low = 0;
+        int high = items.size();
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (items.get(mid).position < position) {
+                low = mid + 1;
+            } else {
+                high = mid;
             }
         }
+        return low;
+    }
 
-        // Base all offsets off of curItem.
-        final int itemCount = getInnerItems().size();
-        float offset = curItem.offset;
-        int pos = curItem.position - 1;
-        try {
-            mFirstOffset_Field.set(this, curItem.position == 0 ? curItem.offset : -Float.MAX_VALUE);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    private void rebuildItemIndex() {
+        mItemIndexDirty = false;
+        final ArrayList<ItemInfo> items = mInnerItems;
+        final int size = items.size();
+        mIndexBase = size > 0 ? items.get(0).position : 0;
+        final int span = size > 0 ? items.get(size - 1).position - mIndexBase + 1 : 0;
+        if (span > mIndexByOffset.length) {
+            mIndexSpan = -1;
+            return;
         }
-        try {
-            mLastOffset_Field.set(this, curItem.position == N - 1 ?
-                    curItem.offset + curItem.widthFactor - 1 : Float.MAX_VALUE);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
-        }
-        // Previous pages
-        for (int i = curIndex - 1; i >= 0; i--, pos--) {
-            final ItemInfo ii = getInnerItems().get(i);
-            while (pos > ii.position) {
-                offset -= getWrapperAdapter().getPageWidth(pos--) + marginOffset;
-            }
-            offset -= ii.widthFactor + marginOffset;
-            ii.offset = offset;
-            if (ii.position == 0) {
-                try {
-                    mFirstOffset_Field.set(this, offset);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        Arrays.fill(mIndexByOffset, 0, span, -1);
+        for (int i = 0; i < size; i++) {
+            final int offset = items.get(i).position - mIndexBase;
+            if (mIndexByOffset[offset] < 0) {
+                mIndexByOffset[offset] = i;
             }
         }
-        offset = curItem.offset + curItem.widthFactor + marginOffset;
-        pos = curItem.position + 1;
-        // Next pages
-        for (int i = curIndex + 1; i < itemCount; i++, pos++) {
-            final ItemInfo ii = getInnerItems().get(i);
-            while (pos < ii.position) {
-                offset += getWrapperAdapter().getPageWidth(pos++) + marginOffset;
+        mIndexSpan = span;
+    }
+
+    /**
+     * maps child to the first item whose object it shows, as ViewPager's linear infoForChild does, or keeps it aside
+     * until its item is added
+     */
+    private void indexChild(View child) {
+        final PagerAdapter adapter = getWrapperAdapter();
+        if (adapter == null) {
+            return;
+        }
+        final ArrayList<ItemInfo> items = mInnerItems;
+        for (int i = 0; i < items.size(); i++) {
+            final ItemInfo ii = items.get(i);
+            if (adapter.isViewFromObject(child, ii.object)) {
+                mItemsByChild.put(child, ii);
+                return;
             }
-            if (ii.position == N - 1) {
-                try {
-                    mLastOffset_Field.set(this, offset + ii.widthFactor - 1);
-                } catch (IllegalAccessException e) {
-                    e.printStackTrace();
-                }
+        }
+        mUnindexedChildren.add(child);
+    }
+
+    /**
+     * maps the children added for ii while it was instantiated
+     */
+    private void indexChildrenOf(ItemInfo ii) {
+        final PagerAdapter adapter = getWrapperAdapter();
+        if (adapter == null) {
+            return;
+        }
+        for (int i = mUnindexedChildren.size() - 1; i >= 0; i--) {
+            final View child = mUnindexedChildren.get(i);
+            if (adapter.isViewFromObject(child, ii.object)) {
+                mUnindexedChildren.remove(i);
+                mItemsByChild.put(child, ii);
             }
-            ii.offset = offset;
-            offset += ii.widthFactor + marginOffset;
         }
+    }
 
-        try {
-            mNeedCalculatePageOffsets_Field.set(this, false);
-        } catch (IllegalAccessException e) {
-            e.printStackTrace();
+    /**
+     * whether the pages of a transition are drawn from hardware layers, default is false
+     */
+    public boolean isUseTransitionLayers() {
+        return mUseTransitionLayers;
+    }
+
+    /**
+     * set whether the current page and its neighbours are promoted to hardware layers while the pager scrolls, and
+     * demoted when it settles, default is false. Offscreen pages never get a layer. It has no effect while a
+     * {@link PageTransformer} is set, ViewPager gives every page a layer itself then.
+     *
+     * @param useTransitionLayers
+     */
+    public void setUseTransitionLayers(boolean useTransitionLayers) {
+        mUseTransitionLayers = useTransitionLayers;
+        if (!useTransitionLayers) {
+            demoteTransitionLayers();
+        } else if (mScrollState != SCROLL_STATE_IDLE) {
+            promoteTransitionLayers();
         }
     }
 
-    public int getInnerCurrentItem() {
-        return super.getCurrentItem();
+    /**
+     * get memory limit in bytes of the transition layers, default is {@link #DEFAULT_TRANSITION_LAYER_MEMORY_LIMIT}
+     */
+    public int getTransitionLayerMemoryLimit() {
+        return mTransitionLayerMemoryLimit;
     }
 
-    private void setInnerCurrentItem(int newCurrentItem) {
-        try {
-            mCurItem_Field.set(this, newCurrentItem);
-        } catch (Exception e) {
-            e.printStackTrace();
+    /**
+     * set memory limit in bytes of the transition layers, default is {@link #DEFAULT_TRANSITION_LAYER_MEMORY_LIMIT}.
+     * A layer takes 4 bytes per pixel of its page, pages that do not fit any more are drawn as usual.
+     *
+     * @param transitionLayerMemoryLimit
+     */
+    public void setTransitionLayerMemoryLimit(int transitionLayerMemoryLimit) {
+        mTransitionLayerMemoryLimit = Math.max(0, transitionLayerMemoryLimit);
+    }
+
+    /**
+     * whether pages are drawn from bitmap snapshots while the pager scrolls, default is false
+     */
+    public boolean isUseTransitionSnapshots() {
+        return mSnapshotCache != null;
+    }
+
+    /**
+     * set whether the current page and its neighbours are rendered to bitmaps when the pager starts to scroll, and
+     * the bitmaps are drawn in place of the live pages until it settles, default is false. A snapshot is reused by
+     * later transitions until its page, or a view in it, is invalidated, or the data set changes. Snapshots are only
+     * used in software rendering, hardware accelerated windows get more from {@link #setUseTransitionLayers(boolean)},
+     * and not while a {@link PageTransformer} is set.
+     *
+     * @param useTransitionSnapshots
+     */
+    public void setUseTransitionSnapshots(boolean useTransitionSnapshots) {
+        if (useTransitionSnapshots == isUseTransitionSnapshots()) {
+            return;
+        }
+        if (useTransitionSnapshots) {
+            mSnapshotCache = new TransitionSnapshotCache(mTransitionSnapshotMemoryLimit);
+            if (mScrollState != SCROLL_STATE_IDLE) {
+                captureTransitionSnapshots();
+            }
+        } else {
+            mDrawingSnapshots = false;
+            mSnapshotCache.clear();
+            mSnapshotCache = null;
+            invalidate();
         }
     }
 
-    private int getInnerExpectedAdapterCount() {
-        try {
-            return mExpectedAdapterCount_Field.getInt(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+    /**
+     * get memory limit in bytes of the transition snapshots, default is
+     * {@link #DEFAULT_TRANSITION_SNAPSHOT_MEMORY_LIMIT}
+     */
+    public int getTransitionSnapshotMemoryLimit() {
+        return mTransitionSnapshotMemoryLimit;
+    }
+
+    /**
+     * set memory limit in bytes of the transition snapshots, default is
+     * {@link #DEFAULT_TRANSITION_SNAPSHOT_MEMORY_LIMIT}. A snapshot takes 4 bytes per pixel of its page, pages that do
+     * not fit any more are drawn as usual.
+     *
+     * @param transitionSnapshotMemoryLimit
+     */
+    public void setTransitionSnapshotMemoryLimit(int transitionSnapshotMemoryLimit) {
+        mTransitionSnapshotMemoryLimit = Math.max(0, transitionSnapshotMemoryLimit);
+        if (mSnapshotCache != null) {
+            mSnapshotCache.setByteLimit(mTransitionSnapshotMemoryLimit);
         }
     }
 
-    private boolean getInnerPopulatePending() {
-        try {
-            return mPopulatePending_Field.getBoolean(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return false;
+    /**
+     * render the current page, then the pages next to it, unless their snapshots are still valid
+     */
+    private void captureTransitionSnapshots() {
+        if (mDrawingOrder != DRAW_ORDER_DEFAULT
+                || (android.os.Build.VERSION.SDK_INT >= 11 && isHardwareAccelerated())) {
+            return;
         }
+        mSnapshotCache.beginTransition();
+        final int currentItem = getInnerCurrentItem();
+        final int childCount = getChildCount();
+        for (int distance = 0; distance <= 1; distance++) {
+            for (int i = 0; i < childCount; i++) {
+                final View child = getChildAt(i);
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                if (lp.isDecor || child.getVisibility() != VISIBLE
+                        || ViewCompat.getLayerType(child) != ViewCompat.LAYER_TYPE_NONE) {
+                    continue;
+                }
+                final ItemInfo ii = infoForChild(child);
+                if (ii != null && Math.abs(ii.position - currentItem) == distance) {
+                    mSnapshotCache.capture(child);
+                }
+            }
+        }
+        mDrawingSnapshots = true;
     }
 
+    @Override
+    protected boolean drawChild(Canvas canvas, View child, long drawingTime) {
+        if (mDrawingSnapshots && !(android.os.Build.VERSION.SDK_INT >= 11 && canvas.isHardwareAccelerated())) {
+            final Bitmap snapshot = mSnapshotCache.get(child);
+            if (snapshot != null && child.getVisibility() == VISIBLE && child.getAnimation() == null) {
+                canvas.drawBitmap(snapshot, child.getLeft(), child.getTop(), null);
+                return false;
+            }
+        }
+        return super.drawChild(canvas, child, drawingTime);
+    }
 
-    private void setInnerDrawingOrderedChildren() {
-        try {
-            mDrawingOrderedChildren_Field.set(this, new ArrayList<View>());
-        } catch (Exception e) {
-            e.printStackTrace();
+    @Override
+    public ViewParent invalidateChildInParent(int[] location, Rect dirty) {
+        if (mSnapshotCache != null && !mSnapshotCache.isEmpty()) {
+            // location holds the left and top of the child the invalidation comes through
+            mSnapshotCache.invalidateAt(location[0], location[1]);
         }
+        return super.invalidateChildInParent(location, dirty);
     }
 
-    private ArrayList<View> getInnerDrawingOrderedChildren() {
-        try {
-            return (ArrayList<View>) mDrawingOrderedChildren_Field.get(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<View>();
+    /**
+     * give the current page, then the pages next to it, a hardware layer while the memory limit allows, pages
+     * already promoted are kept
+     */
+    private void promoteTransitionLayers() {
+        if (mDrawingOrder != DRAW_ORDER_DEFAULT) {
+            return;
+        }
+        final int currentItem = getInnerCurrentItem();
+        final int childCount = getChildCount();
+        // distance 0 is the current page, 1 the pages either side of it
+        for (int distance = 0; distance <= 1; distance++) {
+            for (int i = 0; i < childCount; i++) {
+                final View child = getChildAt(i);
+                final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+                if (lp.isDecor) {
+                    continue;
+                }
+                final ItemInfo ii = infoForChild(child);
+                if (ii == null || Math.abs(ii.position - currentItem) != distance) {
+                    continue;
+                }
+                final int bytes = child.getWidth() * child.getHeight() * 4;
+                if (mLayeredBytes + bytes > mTransitionLayerMemoryLimit
+                        || ViewCompat.getLayerType(child) != ViewCompat.LAYER_TYPE_NONE) {
+                    // over the limit, or a layer the page manages itself or got from us already
+                    continue;
+                }
+                ViewCompat.setLayerType(child, ViewCompat.LAYER_TYPE_HARDWARE, null);
+                mLayeredPages.add(child);
+                mLayeredBytes += bytes;
+            }
         }
     }
 
-    private int getInnerDrawingOrder() {
-        try {
-            return mDrawingOrder_Field.getInt(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+    private void demoteTransitionLayers() {
+        final ArrayList<View> layeredPages = mLayeredPages;
+        for (int i = layeredPages.size() - 1; i >= 0; i--) {
+            ViewCompat.setLayerType(layeredPages.get(i), ViewCompat.LAYER_TYPE_NONE, null);
         }
+        layeredPages.clear();
+        mLayeredBytes = 0;
     }
 
+    /**
+     * Children are added to and removed from the drawing ordered list as they come and go, see
+     * {@link HierarchyChangeListenerWrapper}. Positions only change a little between passes, so an insertion sort in
+     * place brings the list back in order in about one comparison per child, without allocating.
+     */
+    private void sortChildDrawingOrder() {
+        if (mDrawingOrder != DRAW_ORDER_DEFAULT) {
+            final long beginTime = PagerMetrics.begin(PagerMetrics.SORT_CHILD_DRAWING_ORDER);
+            final ArrayList<View> drawingOrderedChildren = mInnerDrawingOrderedChildren;
+            final int childCount = getChildCount();
+            if (drawingOrderedChildren.size() != childCount) {
+                // out of sync, e.g. a child was added before the listener was installed
+                drawingOrderedChildren.clear();
+                for (int i = 0; i < childCount; i++) {
+                    drawingOrderedChildren.add(getChildAt(i));
+                }
+            }
+            for (int i = 1; i < childCount; i++) {
+                final View child = drawingOrderedChildren.get(i);
+                int j = i - 1;
+                while (j >= 0 && sPositionComparator.compare(drawingOrderedChildren.get(j), child) > 0) {
+                    drawingOrderedChildren.set(j + 1, drawingOrderedChildren.get(j));
+                    j--;
+                }
+                if (j + 1 != i) {
+                    drawingOrderedChildren.set(j + 1, child);
+                }
+            }
+            PagerMetrics.end(PagerMetrics.SORT_CHILD_DRAWING_ORDER, beginTime);
+        }
+    }
 
-    private float getInnerLastOffset() {
-        try {
-            return mLastOffset_Field.getFloat(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+    @Override
+    public void setOnHierarchyChangeListener(OnHierarchyChangeListener listener) {
+        if (mHierarchyChangeListenerWrapper == null) {
+            // called by a super constructor, before initFields
+            super.setOnHierarchyChangeListener(listener);
+            return;
         }
+        mHierarchyChangeListenerWrapper.mActualListener = listener;
     }
 
-    private float getInnerFirstOffset() {
-        try {
-            return mFirstOffset_Field.getFloat(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+    /**
+     * {@link #mInnerItems} for the populate walk and the offsets of the core, in loop mode
+     */
+    private class ItemPages implements PopulateWindow.Pages {
+
+        @Override
+        public int size() {
+            return mInnerItems.size();
+        }
+
+        @Override
+        public int getPosition(int index) {
+            return mInnerItems.get(index).position;
+        }
+
+        @Override
+        public float getWidthFactor(int index) {
+            return mInnerItems.get(index).widthFactor;
+        }
+
+        @Override
+        public boolean isScrolling(int index) {
+            return mInnerItems.get(index).scrolling;
+        }
+
+        @Override
+        public float getOffset(int index) {
+            return mInnerItems.get(index).offset;
+        }
+
+        @Override
+        public void setOffset(int index, float offset) {
+            mInnerItems.get(index).offset = offset;
+        }
+
+        @Override
+        public int indexOf(int position) {
+            final int index = indexOfPosition(position);
+            return index >= 0 ? index : -lowerBound(position) - 1;
+        }
+
+        @Override
+        public void add(int position, int index) {
+            addNewItem(position, index);
+        }
+
+        @Override
+        public void destroy(int index) {
+            final ItemInfo ii = mInnerItems.remove(index);
+            mItemIndexDirty = true;
+            getWrapperAdapter().destroyItem(LoopCompatibleViewPager.this, ii.position, ii.object);
         }
     }
 
-    private int getInnerPageMargin() {
-        try {
-            return mPageMargin_Field.getInt(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return 0;
+    /**
+     * keeps {@link #mInnerDrawingOrderedChildren} and {@link #mItemsByChild} in step with the children and forwards
+     * to the listener set by {@link #setOnHierarchyChangeListener(OnHierarchyChangeListener)}
+     */
+    private class HierarchyChangeListenerWrapper implements OnHierarchyChangeListener {
+        OnHierarchyChangeListener mActualListener;
+
+        @Override
+        public void onChildViewAdded(View parent, View child) {
+            if (parent == LoopCompatibleViewPager.this) {
+                mInnerDrawingOrderedChildren.add(child);
+                indexChild(child);
+            }
+            if (mActualListener != null) {
+                mActualListener.onChildViewAdded(parent, child);
+            }
+        }
+
+        @Override
+        public void onChildViewRemoved(View parent, View child) {
+            if (parent == LoopCompatibleViewPager.this) {
+                mInnerDrawingOrderedChildren.remove(child);
+                mItemsByChild.remove(child);
+                mUnindexedChildren.remove(child);
+                if (mSnapshotCache != null) {
+                    mSnapshotCache.remove(child);
+                }
+            }
+            if (mActualListener != null) {
+                mActualListener.onChildViewRemoved(parent, child);
+            }
         }
     }
 
-    private ArrayList<ItemInfo> getInnerItems() {
+    private void calculatePageOffsets(int curIndex, ItemInfo oldCurInfo) {
+        final long beginTime = PagerMetrics.begin(PagerMetrics.CALCULATE_PAGE_OFFSETS);
         try {
-            return (ArrayList<ItemInfo>) mItems_Field.get(this);
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new ArrayList<ItemInfo>();
+            final InfiniteLoopPagerAdapter adapter = getWrapperAdapter();
+            final int width = getClientWidth();
+            final float marginOffset = width > 0 ? (float) getPageMargin() / width : 0;
+            final float[] offsets = mFirstLastOffsets;
+            if (oldCurInfo != null) {
+                PageOffsets.calculate(mPages, adapter, curIndex, oldCurInfo.position, oldCurInfo.offset,
+                        oldCurInfo.widthFactor, adapter.getCount(), marginOffset, offsets);
+            } else {
+                PageOffsets.calculate(mPages, adapter, curIndex, -1, 0, 0, adapter.getCount(), marginOffset, offsets);
+            }
+            // they only move when the real count or a page width changes
+            if (!mOffsetsWritten || offsets[0] != mWrittenFirstOffset || offsets[1] != mWrittenLastOffset) {
+                ViewPagerFields.setFloat(ViewPagerFields.FIRST_OFFSET, this, offsets[0]);
+                ViewPagerFields.setFloat(ViewPagerFields.LAST_OFFSET, this, offsets[1]);
+                mWrittenFirstOffset = offsets[0];
+                mWrittenLastOffset = offsets[1];
+                mOffsetsWritten = true;
+            }
+            ViewPagerFields.setBoolean(ViewPagerFields.NEED_CALCULATE_PAGE_OFFSETS, this, false);
+        } finally {
+            PagerMetrics.end(PagerMetrics.CALCULATE_PAGE_OFFSETS, beginTime);
         }
     }
 
+    public int getInnerCurrentItem() {
+        return super.getCurrentItem();
+    }
+
+    /**
+     * Select a position of the adapter the pager holds, a virtual position in loop mode, as returned by
+     * {@link #getInnerCurrentItem()}. Unlike {@link #setCurrentItem(int, boolean)} it is never taken for a real
+     * position, which a virtual one below the real count would be.
+     *
+     * @param item
+     * @param smoothScroll
+     */
+    protected void setInnerCurrentItem(int item, boolean smoothScroll) {
+        super.setCurrentItem(item, smoothScroll);
+    }
+
+    private void setInnerCurrentItem(int newCurrentItem) {
+        ViewPagerFields.setInt(ViewPagerFields.CUR_ITEM, this, newCurrentItem);
+    }
+
+    private int getInnerExpectedAdapterCount() {
+        return mExpectedAdapterCount;
+    }
+
+    private boolean getInnerPopulatePending() {
+        return ViewPagerFields.getBoolean(ViewPagerFields.POPULATE_PENDING, this, false);
+    }
+
+    private ArrayList<ItemInfo> getInnerItems() {
+        return mInnerItems;
+    }
+
+
+    /**
+     * get the scroll state, one of {@link #SCROLL_STATE_IDLE}, {@link #SCROLL_STATE_DRAGGING} or
+     * {@link #SCROLL_STATE_SETTLING}
+     */
+    public int getScrollState() {
+        return mScrollState;
+    }
+
+    /**
+     * called before the listener set by {@link #setOnPageChangeListener(OnPageChangeListener)}, for subclasses
+     *
+     * @param state the new scroll state
+     */
+    protected void onPageScrollStateChanged(int state) {
+    }
+
+    /**
+     * called before the listener set by {@link #setOnPageChangeListener(OnPageChangeListener)}, for subclasses
+     *
+     * @param position position of the new selected page, a real position in loop mode
+     */
+    protected void onPageSelected(int position) {
+    }
 
     private int getClientWidth() {
         return getMeasuredWidth() - getPaddingLeft() - getPaddingRight();
     }
 
+    /**
+     * ViewPager's state plus the real position of the current item, which stays valid when the wrapper is rebuilt
+     */
+    static class LoopSavedState extends ViewPager.SavedState {
+        int realPosition;
+        final Bundle extras;
+
+        LoopSavedState(ViewPager.SavedState state) {
+            // getSuperState() returns null for the empty state of a plain View, which the constructor rejects
+            super(state.getSuperState() != null ? state.getSuperState() : AbsSavedState.EMPTY_STATE);
+            position = state.position;
+            adapterState = state.adapterState;
+            loader = state.loader;
+            extras = new Bundle();
+        }
+
+        LoopSavedState(Parcel in, ClassLoader loader) {
+            // ViewPager.SavedState falls back to its own class loader, which also loads the adapter state
+            super(in, loader);
+            realPosition = in.readInt();
+            extras = in.readBundle(this.loader);
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(realPosition);
+            out.writeBundle(extras);
+        }
+
+        public static final Parcelable.Creator<LoopSavedState> CREATOR = new Parcelable.Creator<LoopSavedState>() {
+
+            @Override
+            public LoopSavedState createFromParcel(Parcel in) {
+                return new LoopSavedState(in, null);
+            }
+
+            @Override
+            public LoopSavedState[] newArray(int size) {
+                return new LoopSavedState[size];
+            }
+        };
+    }
+
     private class OnPageChangeListenerWrapper implements OnPageChangeListener {
 
         @Override
@@ -615,24 +1414,40 @@ public class LoopCompatibleViewPager extends ViewPager {
                 if (getWrapperAdapter() == null) {
                     mActualOnPageChangeListener.onPageScrolled(position, positionOffset, positionOffsetPixels);
                 } else {
-                    mActualOnPageChangeListener.onPageScrolled(position % getWrapperAdapter().getRealCount(), positionOffset, positionOffsetPixels);
+                    mActualOnPageChangeListener.onPageScrolled(getWrapperAdapter().toRealPosition(position), positionOffset, positionOffsetPixels);
                 }
             }
         }
 
         @Override
         public void onPageSelected(int position) {
+            LoopCompatibleViewPager.this.onPageSelected(
+                    getWrapperAdapter() == null ? position : getWrapperAdapter().toRealPosition(position));
             if(mActualOnPageChangeListener!=null) {
                 if (getWrapperAdapter() == null) {
                     mActualOnPageChangeListener.onPageSelected(position);
                 } else {
-                    mActualOnPageChangeListener.onPageSelected(position % getWrapperAdapter().getRealCount());
+                    mActualOnPageChangeListener.onPageSelected(getWrapperAdapter().toRealPosition(position));
                 }
             }
         }
 
         @Override
         public void onPageScrollStateChanged(int state) {
+            mScrollState = state;
+            if (state == SCROLL_STATE_IDLE) {
+                demoteTransitionLayers();
+                mDrawingSnapshots = false;
+                recenterIfNeeded();
+            } else {
+                if (mUseTransitionLayers) {
+                    promoteTransitionLayers();
+                }
+                if (mSnapshotCache != null && !mDrawingSnapshots) {
+                    captureTransitionSnapshots();
+                }
+            }
+            LoopCompatibleViewPager.this.onPageScrollStateChanged(state);
             if(mActualOnPageChangeListener!=null){
                 if (getWrapperAdapter() == null) {
                     mActualOnPageChangeListener.onPageScrollStateChanged(state);
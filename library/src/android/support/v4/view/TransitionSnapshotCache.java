@@ -0,0 +1,164 @@
+package android.support.v4.view;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.view.View;
+
+/**
+ * Bitmaps of pages drawn by {@link LoopCompatibleViewPager} in place of the live pages while it scrolls
+ * <ul>
+ * <li>a snapshot is kept across transitions until its page invalidates itself or a descendant, changes size, or is
+ * removed, so a page that does not change is rendered once</li>
+ * <li>snapshots take 4 bytes per pixel and their total is bounded by a byte limit, the least recently used ones of
+ * earlier transitions are dropped first</li>
+ * </ul>
+ */
+final class TransitionSnapshotCache {
+
+    private final LinkedHashMap<View, Snapshot> mSnapshots  = new LinkedHashMap<View, Snapshot>(8, 0.75f, true);
+    private int                                 mByteLimit;
+    private int                                 mBytes;
+    /** snapshots taken or refreshed for the current transition are not evicted by it **/
+    private int                                 mGeneration = 0;
+
+    TransitionSnapshotCache(int byteLimit) {
+        mByteLimit = byteLimit;
+    }
+
+    void setByteLimit(int byteLimit) {
+        mByteLimit = byteLimit;
+        makeRoom(0, mGeneration + 1);
+    }
+
+    boolean isEmpty() {
+        return mSnapshots.isEmpty();
+    }
+
+    /**
+     * a transition starts, snapshots of earlier ones may be evicted by {@link #capture(View)} from now on
+     */
+    void beginTransition() {
+        mGeneration++;
+    }
+
+    /**
+     * render page unless it has a valid snapshot already
+     *
+     * @return whether page has a valid snapshot now
+     */
+    boolean capture(View page) {
+        final int width = page.getWidth();
+        final int height = page.getHeight();
+        if (width <= 0 || height <= 0) {
+            return false;
+        }
+        Snapshot snapshot = mSnapshots.get(page);
+        if (snapshot != null && (snapshot.mBitmap.getWidth() != width || snapshot.mBitmap.getHeight() != height)) {
+            remove(page);
+            snapshot = null;
+        }
+        if (snapshot == null) {
+            final int bytes = width * height * 4;
+            if (!makeRoom(bytes, mGeneration)) {
+                return false;
+            }
+            final Bitmap bitmap;
+            try {
+                bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            } catch (OutOfMemoryError e) {
+                e.printStackTrace();
+                return false;
+            }
+            snapshot = new Snapshot(bitmap, bytes);
+            mSnapshots.put(page, snapshot);
+            mBytes += bytes;
+        } else if (!snapshot.mDirty) {
+            snapshot.mGeneration = mGeneration;
+            return true;
+        } else {
+            snapshot.mBitmap.eraseColor(Color.TRANSPARENT);
+        }
+        final Canvas canvas = new Canvas(snapshot.mBitmap);
+        // the parent applies the scroll of a page when it draws it
+        canvas.translate(-page.getScrollX(), -page.getScrollY());
+        page.draw(canvas);
+        snapshot.mDirty = false;
+        snapshot.mGeneration = mGeneration;
+        return true;
+    }
+
+    /**
+     * @return the valid snapshot of page, null if there is none
+     */
+    Bitmap get(View page) {
+        final Snapshot snapshot = mSnapshots.get(page);
+        return snapshot == null || snapshot.mDirty ? null : snapshot.mBitmap;
+    }
+
+    /**
+     * mark the snapshot of the page at left, top as out of date, the page is drawn live until it is captured again
+     */
+    void invalidateAt(int left, int top) {
+        for (Map.Entry<View, Snapshot> entry : mSnapshots.entrySet()) {
+            final View page = entry.getKey();
+            if (page.getLeft() == left && page.getTop() == top) {
+                entry.getValue().mDirty = true;
+            }
+        }
+    }
+
+    void invalidateAll() {
+        for (Snapshot snapshot : mSnapshots.values()) {
+            snapshot.mDirty = true;
+        }
+    }
+
+    void remove(View page) {
+        final Snapshot snapshot = mSnapshots.remove(page);
+        if (snapshot != null) {
+            mBytes -= snapshot.mBytes;
+            snapshot.mBitmap.recycle();
+        }
+    }
+
+    void clear() {
+        for (Snapshot snapshot : mSnapshots.values()) {
+            snapshot.mBitmap.recycle();
+        }
+        mSnapshots.clear();
+        mBytes = 0;
+    }
+
+    /**
+     * drop the least recently used snapshots of transitions before keepGeneration until bytes fit in the limit
+     */
+    private boolean makeRoom(int bytes, int keepGeneration) {
+        final Iterator<Snapshot> iterator = mSnapshots.values().iterator();
+        while (mBytes + bytes > mByteLimit && iterator.hasNext()) {
+            final Snapshot snapshot = iterator.next();
+            if (snapshot.mGeneration < keepGeneration) {
+                iterator.remove();
+                mBytes -= snapshot.mBytes;
+                snapshot.mBitmap.recycle();
+            }
+        }
+        return mBytes + bytes <= mByteLimit;
+    }
+
+    private static class Snapshot {
+        final Bitmap mBitmap;
+        final int    mBytes;
+        boolean      mDirty;
+        int          mGeneration;
+
+        Snapshot(Bitmap bitmap, int bytes) {
+            mBitmap = bitmap;
+            mBytes = bytes;
+        }
+    }
+}
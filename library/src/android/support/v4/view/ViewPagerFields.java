@@ -0,0 +1,119 @@
+package android.support.v4.view;
+
+import java.lang.reflect.Field;
+
+import cn.trinea.android.view.autoscrollviewpager.PagerMetrics;
+
+/**
+ * Private fields of {@link ViewPager} used by {@link LoopCompatibleViewPager}, resolved once per class instead of
+ * once per instance.
+ * <p>
+ * Primitive fields are read and written through the typed {@link Field} accessors so no value is boxed. If a field
+ * cannot be resolved (e.g. the support library renamed it), getters return the given default and setters do nothing.
+ */
+final class ViewPagerFields {
+
+    static final Field CUR_ITEM                    = resolve("mCurItem");
+    static final Field POPULATE_PENDING            = resolve("mPopulatePending");
+    static final Field ITEMS                       = resolve("mItems");
+    static final Field DRAWING_ORDERED_CHILDREN    = resolve("mDrawingOrderedChildren");
+    static final Field FIRST_OFFSET                = resolve("mFirstOffset");
+    static final Field LAST_OFFSET                 = resolve("mLastOffset");
+    static final Field NEED_CALCULATE_PAGE_OFFSETS = resolve("mNeedCalculatePageOffsets");
+    static final Field RESTORED_CUR_ITEM           = resolve("mRestoredCurItem");
+
+    private ViewPagerFields() {
+    }
+
+    private static Field resolve(String name) {
+        try {
+            Field field = ViewPager.class.getDeclaredField(name);
+            field.setAccessible(true);
+            return field;
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static Object get(Field field, ViewPager pager) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return null;
+        }
+        try {
+            return field.get(pager);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    static void set(Field field, ViewPager pager, Object value) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return;
+        }
+        try {
+            field.set(pager, value);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+        }
+    }
+
+    static void setInt(Field field, ViewPager pager, int value) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return;
+        }
+        try {
+            field.setInt(pager, value);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+        }
+    }
+
+    static boolean getBoolean(Field field, ViewPager pager, boolean defaultValue) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return defaultValue;
+        }
+        try {
+            return field.getBoolean(pager);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+            return defaultValue;
+        }
+    }
+
+    static void setBoolean(Field field, ViewPager pager, boolean value) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return;
+        }
+        try {
+            field.setBoolean(pager, value);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+        }
+    }
+
+    static void setFloat(Field field, ViewPager pager, float value) {
+        if (field == null) {
+            PagerMetrics.onReflectionFailure();
+            return;
+        }
+        try {
+            field.setFloat(pager, value);
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+        }
+    }
+}
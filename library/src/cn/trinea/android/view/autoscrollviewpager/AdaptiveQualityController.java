@@ -0,0 +1,88 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Steps the auto scroll quality of an {@link AutoScrollViewPager} down while its transitions drop frames, and back up
+ * once they run smoothly again
+ * <ul>
+ * <li>a transition is janky if more than a quarter of its frames were over budget</li>
+ * <li>{@link #degradeAfter} janky transitions in a row lower the level by one, down to {@link #maxLevel}</li>
+ * <li>{@link #recoverAfter} smooth transitions in a row raise it by one. At
+ * {@link AutoScrollViewPager#QUALITY_INSTANT} nothing is animated, so after {@link #recoverAfter} instant swaps the
+ * level is raised to probe whether animations run smoothly again</li>
+ * </ul>
+ */
+class AdaptiveQualityController {
+
+    interface OnLevelChangeListener {
+
+        void onLevelChanged(int level);
+    }
+
+    private final OnLevelChangeListener listener;
+    private int                         level       = AutoScrollViewPager.QUALITY_FULL;
+    private int                         maxLevel    = AutoScrollViewPager.QUALITY_INSTANT;
+    private int                         degradeAfter;
+    private int                         recoverAfter;
+    private int                         jankyStreak = 0;
+    private int                         smoothStreak = 0;
+
+    AdaptiveQualityController(OnLevelChangeListener listener, int degradeAfter, int recoverAfter) {
+        this.listener = listener;
+        setThresholds(degradeAfter, recoverAfter);
+    }
+
+    int getLevel() {
+        return level;
+    }
+
+    void setMaxLevel(int maxLevel) {
+        this.maxLevel = Math.max(AutoScrollViewPager.QUALITY_FULL, Math.min(AutoScrollViewPager.QUALITY_INSTANT,
+                maxLevel));
+        if (level > this.maxLevel) {
+            setLevel(this.maxLevel);
+        }
+    }
+
+    void setThresholds(int degradeAfter, int recoverAfter) {
+        this.degradeAfter = Math.max(1, degradeAfter);
+        this.recoverAfter = Math.max(1, recoverAfter);
+    }
+
+    /**
+     * an animated auto scroll finished
+     */
+    void onAutoTransition(int frameCount, int jankFrameCount) {
+        if (frameCount <= 0) {
+            return;
+        }
+        if (jankFrameCount * 4 > frameCount) {
+            smoothStreak = 0;
+            if (++jankyStreak >= degradeAfter && level < maxLevel) {
+                setLevel(level + 1);
+            }
+        } else {
+            jankyStreak = 0;
+            if (++smoothStreak >= recoverAfter && level > AutoScrollViewPager.QUALITY_FULL) {
+                setLevel(level - 1);
+            }
+        }
+    }
+
+    /**
+     * an auto scroll swapped pages without animation
+     */
+    void onInstantAdvance() {
+        if (level == AutoScrollViewPager.QUALITY_INSTANT && ++smoothStreak >= recoverAfter) {
+            setLevel(level - 1);
+        }
+    }
+
+    private void setLevel(int newLevel) {
+        jankyStreak = 0;
+        smoothStreak = 0;
+        if (level != newLevel) {
+            level = newLevel;
+            listener.onLevelChanged(newLevel);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.view.PagerAdapter;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.FrameLayout;
+
+/**
+ * Pager adapter building its pages on a background executor
+ * <ul>
+ * <li>{@link #instantiateItem(ViewGroup, int)} attaches a host holding {@link #createPlaceholder(Context, int)} at
+ * once and submits {@link #createPage(LayoutInflater, ViewGroup, int)}</li>
+ * <li>the built page replaces the placeholder in a single main thread message, so no frame shows both or
+ * neither</li>
+ * <li>{@link #destroyItem(ViewGroup, int, Object)} cancels a build that has not been swapped in yet, its result is
+ * dropped even if it already finished</li>
+ * </ul>
+ * createPage must only touch views it creates itself, each build gets its own {@link LayoutInflater} clone. Layouts
+ * that create a {@link Handler} while inflating, e.g. some custom views, cannot be built off the main thread.
+ */
+public abstract class AsyncPagerAdapter extends PagerAdapter {
+
+    private static ExecutorService defaultExecutor;
+
+    private final ExecutorService  executor;
+    private final Handler          handler = new Handler(Looper.getMainLooper());
+
+    /**
+     * build pages on an executor shared by every AsyncPagerAdapter, two background priority threads
+     */
+    public AsyncPagerAdapter() {
+        this(getDefaultExecutor());
+    }
+
+    /**
+     * @param executor executor building the pages, not shut down by the adapter
+     */
+    public AsyncPagerAdapter(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    private static synchronized ExecutorService getDefaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = Executors.newFixedThreadPool(2, new ThreadFactory() {
+
+                private final AtomicInteger count = new AtomicInteger();
+
+                @Override
+                public Thread newThread(final Runnable r) {
+                    Thread thread = new Thread(new Runnable() {
+
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            r.run();
+                        }
+                    }, "AsyncPagerAdapter #" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * build the page at position, called on a background thread
+     *
+     * @param inflater inflater owned by this build
+     * @param parent host the page is added to, only for its layout params, do not touch it
+     * @param position
+     * @return the page, null keeps the placeholder
+     */
+    protected abstract View createPage(LayoutInflater inflater, ViewGroup parent, int position);
+
+    /**
+     * create the view shown until the page at position is built, called on the main thread, should be cheap. Default
+     * is an empty view.
+     *
+     * @param context
+     * @param position
+     * @return
+     */
+    protected View createPlaceholder(Context context, int position) {
+        return new View(context);
+    }
+
+    /**
+     * called on the main thread once the page at position replaced its placeholder, e.g. to start loading images
+     *
+     * @param page
+     * @param position
+     */
+    protected void onPageAttached(View page, int position) {
+    }
+
+    @Override
+    public Object instantiateItem(ViewGroup container, int position) {
+        Context context = container.getContext();
+        PageHost host = new PageHost(context, position);
+        host.addView(createPlaceholder(context, position));
+        container.addView(host);
+        host.build(LayoutInflater.from(context).cloneInContext(context));
+        return host;
+    }
+
+    @Override
+    public void destroyItem(ViewGroup container, int position, Object object) {
+        PageHost host = (PageHost)object;
+        host.cancel();
+        container.removeView(host);
+    }
+
+    @Override
+    public boolean isViewFromObject(View view, Object object) {
+        return view == object;
+    }
+
+    /**
+     * holds the placeholder, then the page, for the pager
+     */
+    private class PageHost extends FrameLayout implements Runnable {
+
+        private final int        position;
+        private LayoutInflater   inflater;
+        private Future<?>        future;
+        /** read by the build thread, written on the main thread **/
+        private volatile boolean isCancelled = false;
+        private View             page;
+
+        PageHost(Context context, int position) {
+            super(context);
+            this.position = position;
+        }
+
+        void build(LayoutInflater inflater) {
+            this.inflater = inflater;
+            future = executor.submit(this);
+        }
+
+        void cancel() {
+            isCancelled = true;
+            if (future != null) {
+                // not interrupted, inflation may hold framework locks
+                future.cancel(false);
+                future = null;
+            }
+            handler.removeCallbacks(swapIn);
+        }
+
+        /**
+         * build the page, on the executor
+         */
+        @Override
+        public void run() {
+            if (isCancelled) {
+                return;
+            }
+            View built = null;
+            try {
+                built = createPage(inflater, this, position);
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+            inflater = null;
+            if (built == null || isCancelled) {
+                return;
+            }
+            page = built;
+            handler.post(swapIn);
+        }
+
+        private final Runnable swapIn = new Runnable() {
+
+            @Override
+            public void run() {
+                future = null;
+                if (isCancelled || page == null) {
+                    return;
+                }
+                removeAllViews();
+                addView(page);
+                onPageAttached(page, position);
+            }
+        };
+    }
+}
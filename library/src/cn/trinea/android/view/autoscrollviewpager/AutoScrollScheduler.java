@@ -0,0 +1,289 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * Process wide auto scroll scheduler, ticks every {@link AutoScrollViewPager} that uses it from one frame aligned
+ * callback instead of one handler message per pager
+ * <ul>
+ * <strong>Usage</strong>
+ * <li>{@link AutoScrollViewPager#setUseSharedScheduler(boolean)} opt a pager in</li>
+ * <li>{@link #setMaxStartsPerFrame(int)} set how many pagers may start their scroll animation in the same frame, the
+ * rest wait for the next frames</li>
+ * <li>{@link #setPhaseOffset(long)} set the delay added to each pager registered after the first one, so pagers
+ * started together with the same interval do not stay in step</li>
+ * </ul>
+ * Pagers are held by weak references. A pager keeps its phase slot as long as it is referenced, through stops,
+ * detaches and re-attaches, so only its first scroll is delayed by the phase offset. The slot is freed once the pager
+ * is collected. All methods must be called on the main thread.
+ */
+public class AutoScrollScheduler {
+
+    /** default max number of pagers starting a scroll animation in the same frame **/
+    public static final int            DEFAULT_MAX_STARTS_PER_FRAME = 1;
+    /** default phase offset between pagers in milliseconds **/
+    public static final long           DEFAULT_PHASE_OFFSET         = 0;
+
+    private static AutoScrollScheduler instance;
+
+    private final ArrayList<Entry>     entries                      = new ArrayList<Entry>();
+    private final Handler              handler                      = new Handler(Looper.getMainLooper());
+    private final FrameTicker          ticker;
+    private int                        maxStartsPerFrame            = DEFAULT_MAX_STARTS_PER_FRAME;
+    private long                       phaseOffset                  = DEFAULT_PHASE_OFFSET;
+    /** due time the posted tick was posted for, Long.MAX_VALUE if no tick is posted **/
+    private long                       postedTickTime               = Long.MAX_VALUE;
+
+    private AutoScrollScheduler() {
+        ticker = Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN ? new ChoreographerTicker()
+                : new HandlerTicker();
+    }
+
+    /**
+     * get the scheduler shared by the whole process, must be called on the main thread
+     */
+    public static AutoScrollScheduler getInstance() {
+        if (instance == null) {
+            instance = new AutoScrollScheduler();
+        }
+        return instance;
+    }
+
+    /**
+     * get max number of pagers starting a scroll animation in the same frame, default is
+     * {@link #DEFAULT_MAX_STARTS_PER_FRAME}
+     */
+    public int getMaxStartsPerFrame() {
+        return maxStartsPerFrame;
+    }
+
+    /**
+     * set max number of pagers starting a scroll animation in the same frame, default is
+     * {@link #DEFAULT_MAX_STARTS_PER_FRAME}. Pagers over the cap scroll in the following frames, the earliest due
+     * first.
+     *
+     * @param maxStartsPerFrame at least 1
+     */
+    public void setMaxStartsPerFrame(int maxStartsPerFrame) {
+        this.maxStartsPerFrame = Math.max(1, maxStartsPerFrame);
+    }
+
+    /**
+     * get phase offset in milliseconds, default is {@link #DEFAULT_PHASE_OFFSET}
+     */
+    public long getPhaseOffset() {
+        return phaseOffset;
+    }
+
+    /**
+     * set phase offset in milliseconds, default is {@link #DEFAULT_PHASE_OFFSET}. A pager registering takes the lowest
+     * free slot n, its first scroll is delayed by n times phaseOffset, later scrolls keep that phase.
+     *
+     * @param phaseOffset
+     */
+    public void setPhaseOffset(long phaseOffset) {
+        this.phaseOffset = Math.max(0, phaseOffset);
+    }
+
+    /**
+     * schedule the next auto scroll of pager
+     *
+     * @param pager
+     * @param delayTimeInMills
+     */
+    void schedule(AutoScrollViewPager pager, long delayTimeInMills) {
+        long dueTime = SystemClock.uptimeMillis() + Math.max(0, delayTimeInMills);
+        Entry entry = findEntry(pager);
+        if (entry == null) {
+            entry = new Entry(pager, nextFreeSlot());
+            dueTime += entry.slot * phaseOffset;
+            entries.add(entry);
+        }
+        entry.dueTime = dueTime;
+        scheduleNextTick();
+    }
+
+    /**
+     * pager will not be ticked until it is scheduled again, it keeps its phase slot
+     *
+     * @param pager
+     */
+    void cancel(AutoScrollViewPager pager) {
+        Entry entry = findEntry(pager);
+        if (entry != null) {
+            entry.dueTime = -1;
+        }
+    }
+
+    /**
+     * pager will not be ticked until it is scheduled again, when it is detached or stops using the scheduler. It keeps
+     * its phase slot, scheduling it again must not add the phase offset a second time. Slots of collected pagers are
+     * freed.
+     *
+     * @param pager
+     */
+    void release(AutoScrollViewPager pager) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            AutoScrollViewPager p = entry.pager.get();
+            if (p == null) {
+                entries.remove(i);
+            } else if (p == pager) {
+                entry.dueTime = -1;
+            }
+        }
+    }
+
+    /**
+     * @return lowest phase slot no live pager holds
+     */
+    private int nextFreeSlot() {
+        int slot = 0;
+        boolean taken = true;
+        while (taken) {
+            taken = false;
+            for (int i = 0; i < entries.size(); i++) {
+                Entry entry = entries.get(i);
+                if (entry.slot == slot && entry.pager.get() != null) {
+                    taken = true;
+                    slot++;
+                    break;
+                }
+            }
+        }
+        return slot;
+    }
+
+    /**
+     * get the time pager is due in {@link SystemClock#uptimeMillis()}, -1 if it is not scheduled
+     */
+    long getDueTime(AutoScrollViewPager pager) {
+        Entry entry = findEntry(pager);
+        return entry == null ? -1 : entry.dueTime;
+    }
+
+    private Entry findEntry(AutoScrollViewPager pager) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.pager.get() == pager) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void doFrame() {
+        postedTickTime = Long.MAX_VALUE;
+        long now = SystemClock.uptimeMillis();
+        for (int started = 0; started < maxStartsPerFrame; started++) {
+            Entry due = null;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                Entry entry = entries.get(i);
+                if (entry.pager.get() == null) {
+                    entries.remove(i);
+                } else if (entry.dueTime >= 0 && entry.dueTime <= now && (due == null || entry.dueTime < due.dueTime)) {
+                    due = entry;
+                }
+            }
+            if (due == null) {
+                break;
+            }
+            AutoScrollViewPager pager = due.pager.get();
+            due.dueTime = -1;
+            // reschedules itself through schedule(...)
+            pager.onAutoScrollDue();
+        }
+        scheduleNextTick();
+    }
+
+    private void scheduleNextTick() {
+        long nextDueTime = Long.MAX_VALUE;
+        for (int i = 0; i < entries.size(); i++) {
+            long dueTime = entries.get(i).dueTime;
+            if (dueTime >= 0 && dueTime < nextDueTime) {
+                nextDueTime = dueTime;
+            }
+        }
+        if (nextDueTime >= postedTickTime) {
+            // nothing due, or the posted tick comes first anyway
+            return;
+        }
+        if (postedTickTime != Long.MAX_VALUE) {
+            ticker.removeTick();
+        }
+        postedTickTime = nextDueTime;
+        ticker.postTick(Math.max(0, nextDueTime - SystemClock.uptimeMillis()));
+    }
+
+    private static class Entry {
+
+        final WeakReference<AutoScrollViewPager> pager;
+        /** phase slot, the first scroll is delayed by slot times the phase offset **/
+        final int                                slot;
+        /** in {@link SystemClock#uptimeMillis()}, -1 means not scheduled **/
+        long                                     dueTime = -1;
+
+        Entry(AutoScrollViewPager pager, int slot) {
+            this.pager = new WeakReference<AutoScrollViewPager>(pager);
+            this.slot = slot;
+        }
+    }
+
+    private interface FrameTicker {
+
+        /**
+         * call {@link AutoScrollScheduler#doFrame()} on the first frame after delayTimeInMills
+         */
+        void postTick(long delayTimeInMills);
+
+        void removeTick();
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private class ChoreographerTicker implements FrameTicker, Choreographer.FrameCallback {
+
+        @Override
+        public void postTick(long delayTimeInMills) {
+            Choreographer.getInstance().postFrameCallbackDelayed(this, delayTimeInMills);
+        }
+
+        @Override
+        public void removeTick() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            AutoScrollScheduler.this.doFrame();
+        }
+    }
+
+    /**
+     * before jelly bean there is no frame callback, ticks are plain handler messages
+     */
+    private class HandlerTicker implements FrameTicker, Runnable {
+
+        @Override
+        public void postTick(long delayTimeInMills) {
+            handler.postDelayed(this, delayTimeInMills);
+        }
+
+        @Override
+        public void removeTick() {
+            handler.removeCallbacks(this);
+        }
+
+        @Override
+        public void run() {
+            doFrame();
+        }
+    }
+}
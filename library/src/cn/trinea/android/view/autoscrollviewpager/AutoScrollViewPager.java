@@ -1,16 +1,28 @@
 package cn.trinea.android.view.autoscrollviewpager;
 
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Field;
+import java.util.List;
 
 import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Rect;
+import android.os.Bundle;
 import android.os.Handler;
 import android.os.Message;
+import android.os.SystemClock;
 import android.support.v4.view.LoopCompatibleViewPager;
 import android.support.v4.view.MotionEventCompat;
 import android.support.v4.view.PagerAdapter;
 import android.support.v4.view.ViewPager;
 import android.util.AttributeSet;
+import android.view.Display;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
 import android.view.animation.Interpolator;
 
 /**
@@ -20,6 +32,8 @@ import android.view.animation.Interpolator;
  * <li>{@link #startAutoScroll()} start auto scroll, or {@link #startAutoScroll(int)} start auto scroll delayed</li>
  * <li>{@link #stopAutoScroll()} stop auto scroll</li>
  * <li>{@link #setInterval(long)} set auto scroll time in milliseconds, default is {@link #DEFAULT_INTERVAL}</li>
+ * <li>auto scroll is suspended while the pager is detached, hidden, its window is hidden or the screen is off, and
+ * resumes with the delay that was left</li>
  * </ul>
  * <ul>
  * <strong>Advanced Settings and Usage</strong>
@@ -28,6 +42,31 @@ import android.view.animation.Interpolator;
  * is true</li>
  * <li>{@link #setSlideBorderMode(int)} set how to process when sliding at the last or first item</li>
  * <li>{@link #setStopScrollWhenTouch(boolean)} set whether stop auto scroll when touching, default is true</li>
+ * <li>{@link #setUseSharedScheduler(boolean)} set whether auto scroll is driven by the process wide
+ * {@link AutoScrollScheduler}, default is false</li>
+ * <li>{@link #setMinVisibleFraction(float)} set the visible fraction below which auto scroll pauses, default is 0,
+ * never pause</li>
+ * <li>{@link #setOnTransitionStatsListener(OnTransitionStatsListener, int)} receive frame statistics of each page
+ * transition in batches</li>
+ * <li>{@link #setAdaptiveQuality(boolean)} step the auto scroll animation down to shorter scrolls, no border animation
+ * and finally instant page swaps while transitions drop frames, limited by {@link #setMaxQualityLevel(int)} and
+ * reported to {@link #setOnQualityLevelChangeListener(OnQualityLevelChangeListener)}</li>
+ * <li>{@link #setPowerPolicy(PowerPolicy)} let battery saver, battery level, thermal throttling and the screen state
+ * stretch the interval, stop animations or suspend auto scroll, e.g. {@link DefaultPowerPolicy}</li>
+ * <li>{@link #setDeferOffscreenPages(boolean)} instantiate only the visible pages of a new adapter at first, and the
+ * offscreen ones once the main thread is idle, in loop mode</li>
+ * <li>{@link #setUseTransitionLayers(boolean)} draw the pages of a transition from hardware layers, limited by
+ * {@link #setTransitionLayerMemoryLimit(int)}</li>
+ * <li>{@link #setUseTransitionSnapshots(boolean)} draw the pages of a transition from bitmaps kept until they are
+ * invalidated, for software rendering, limited by {@link #setTransitionSnapshotMemoryLimit(int)}</li>
+ * <li>{@link #setRetainedPageMemoryLimit(int)} keep only the offscreen pages whose estimated size fits in a byte
+ * limit, see {@link android.support.v4.view.InfiniteLoopPagerAdapter.PageSizeEstimator}, the window also shrinks on
+ * {@link #trimMemory(int)}, in loop mode</li>
+ * <li>{@link #setVelocityAwareScroll(boolean)} let the release velocity and the remaining distance decide how long a
+ * swipe settles, clamped by {@link #setScrollDurationRange(int, int)}</li>
+ * <li>{@link #setScrollInterpolator(Interpolator)} set the curve of the scroll animation, precomputed into a table</li>
+ * <li>{@link #setPrefetchCount(int)} and {@link #setPrefetchLeadTime(long)} set how upcoming pages are announced to an
+ * adapter implementing {@link PagePrefetcher}</li>
  * </ul>
  * 
  * @author <a href="http://www.trinea.cn" target="_blank">Trinea</a> 2013-12-30
@@ -35,10 +74,24 @@ import android.view.animation.Interpolator;
 public class AutoScrollViewPager extends LoopCompatibleViewPager {
 
     public static final int        DEFAULT_INTERVAL            = 1500;
+    public static final int        DEFAULT_PREFETCH_COUNT      = 1;
+    public static final int        DEFAULT_PREFETCH_LEAD_TIME  = 500;
 
     public static final int        LEFT                        = 0;
     public static final int        RIGHT                       = 1;
 
+    /** auto scroll animates as configured **/
+    public static final int        QUALITY_FULL                = 0;
+    /** auto scroll animation is shortened by the reduced duration factor **/
+    public static final int        QUALITY_SHORT_DURATION      = 1;
+    /** as {@link #QUALITY_SHORT_DURATION}, and auto scroll jumps without animation at the last or first item **/
+    public static final int        QUALITY_NO_BORDER_ANIMATION = 2;
+    /** auto scroll swaps pages without animation **/
+    public static final int        QUALITY_INSTANT             = 3;
+    public static final double     DEFAULT_REDUCED_DURATION_FACTOR = 0.5;
+    public static final int        DEFAULT_DEGRADE_AFTER       = 2;
+    public static final int        DEFAULT_RECOVER_AFTER       = 5;
+
     /** do nothing when sliding at the last or first item **/
     public static final int        SLIDE_BORDER_MODE_NONE      = 0;
     /** cycle when sliding at the last or first item **/
@@ -62,14 +115,80 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
     private double                 autoScrollFactor            = 1.0;
     /** scroll factor for swipe scroll animation, default is 1.0 **/
     private double                 swipeScrollFactor           = 1.0;
+    /** whether auto scroll is driven by {@link AutoScrollScheduler}, default is false **/
+    private boolean                useSharedScheduler          = false;
+    /** visible fraction below which auto scroll pauses, default is 0, never pause **/
+    private float                  minVisibleFraction          = 0f;
+    /** number of upcoming pages announced to a {@link PagePrefetcher}, default is {@link #DEFAULT_PREFETCH_COUNT} **/
+    private int                    prefetchCount               = DEFAULT_PREFETCH_COUNT;
+    /** time in milliseconds before each auto scroll to prefetch, default is {@link #DEFAULT_PREFETCH_LEAD_TIME} **/
+    private long                   prefetchLeadTime            = DEFAULT_PREFETCH_LEAD_TIME;
 
     private Handler                handler;
     private boolean                isAutoScroll                = false;
     private boolean                isStopByTouch               = false;
     private float                  touchX                      = 0f, downX = 0f;
+    /** current item and page count when the gesture went down **/
+    private int                    gestureItem                 = 0, gesturePageCount = 0;
+    /** whether {@link #SLIDE_BORDER_MODE_CYCLE} already jumped in this gesture **/
+    private boolean                isGestureBorderCycled       = false;
+    /** tracks the release velocity for a velocity aware scroller, reused across gestures **/
+    private VelocityTracker        velocityTracker;
+    private int                    maxFlingVelocity;
+    /** last value requested from the parent in this gesture **/
+    private boolean                isParentInterceptDisallowed = false;
     private CustomDurationScroller scroller                    = null;
+    /** time the next auto scroll is due, in {@link SystemClock#uptimeMillis()} **/
+    private long                   nextScrollTime              = 0;
+    /** delay left of the pending auto scroll when it was suspended **/
+    private long                   suspendedDelay              = 0;
+    /** delay left of the auto scroll pending when the instance state was saved, used by the next start, -1 if none **/
+    private long                   restoredDelay               = -1;
+    /** auto scroll is suspended while any SUSPEND_* bit is set, a new pager is not attached yet **/
+    private int                    suspendFlags                = SUSPEND_DETACHED;
+    private final Rect             visibleRect                 = new Rect();
+    private VisibilityTracker      visibilityTracker;
+    /** current item and direction of the last prefetch, so it is not repeated **/
+    private int                    prefetchedItem              = -1, prefetchedDirection = -1;
+    private boolean                isDragging                  = false;
+    private DataSetObserver        prefetchObserver;
+    /** null unless a {@link OnTransitionStatsListener} is registered or adaptive quality is on **/
+    private TransitionStatsTracker statsTracker;
+    /** null unless adaptive quality is on **/
+    private AdaptiveQualityController qualityController;
+    private OnQualityLevelChangeListener qualityLevelChangeListener;
+    /** lowest quality adaptive quality may reach, default is {@link #QUALITY_INSTANT} **/
+    private int                    maxQualityLevel             = QUALITY_INSTANT;
+    /** factor applied to the auto scroll duration from {@link #QUALITY_SHORT_DURATION} on **/
+    private double                 reducedDurationFactor       = DEFAULT_REDUCED_DURATION_FACTOR;
+    private int                    degradeAfter                = DEFAULT_DEGRADE_AFTER;
+    private int                    recoverAfter                = DEFAULT_RECOVER_AFTER;
+    /** null unless a power policy is set **/
+    private PowerPolicy            powerPolicy;
+    private PowerStateMonitor.OnPowerStateChangeListener powerListener;
+    /** decided by {@link #powerPolicy} for the current {@link PowerState} **/
+    private boolean                isPowerAnimationAllowed     = true;
+    private double                 powerIntervalFactor         = 1;
+    /** whether the scroll being started comes from {@link #onAutoScrollDue()} **/
+    private boolean                isAutoScrolling             = false;
+
+    private static final String    STATE_AUTO_SCROLL_DELAY     = "autoScrollDelay";
 
     public static final int        SCROLL_WHAT                 = 0;
+    public static final int        PREFETCH_WHAT               = 1;
+
+    /** less than {@link #minVisibleFraction} of the pager is inside its parents' viewport **/
+    private static final int       SUSPEND_OUT_OF_VIEWPORT     = 1;
+    /** the pager is not attached to a window **/
+    private static final int       SUSPEND_DETACHED            = 1 << 1;
+    /** the window of the pager is not visible, e.g. its activity is in background **/
+    private static final int       SUSPEND_WINDOW_HIDDEN       = 1 << 2;
+    /** the pager or one of its ancestors is not visible **/
+    private static final int       SUSPEND_HIDDEN              = 1 << 3;
+    /** the screen is off **/
+    private static final int       SUSPEND_SCREEN_OFF          = 1 << 4;
+    /** the power policy suspended auto scroll **/
+    private static final int       SUSPEND_POWER               = 1 << 5;
 
     public AutoScrollViewPager(Context paramContext) {
         super(paramContext);
@@ -82,26 +201,48 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
     }
 
     private void init() {
-        handler = new MyHandler();
+        handler = new MyHandler(this);
+        visibilityTracker = new VisibilityTracker();
+        prefetchObserver = new DataSetObserver() {
+
+            @Override
+            public void onChanged() {
+                restartPrefetch();
+            }
+
+            @Override
+            public void onInvalidated() {
+                restartPrefetch();
+            }
+        };
+        maxFlingVelocity = ViewConfiguration.get(getContext()).getScaledMaximumFlingVelocity();
         setViewPagerScroller();
     }
 
     /**
-     * start auto scroll, first scroll delay time is {@link #getInterval()}
+     * start auto scroll, first scroll delay time is {@link #getInterval()}, stretched like every interval by the
+     * {@link PowerPolicy}
      */
     public void startAutoScroll() {
         isAutoScroll = true;
-        sendScrollMessage((long) (interval + scroller.getDuration()/ autoScrollFactor * swipeScrollFactor));
+        if (restoredDelay >= 0) {
+            // keeps the phase of the instance that was saved
+            sendScrollMessage(restoredDelay);
+            restoredDelay = -1;
+            return;
+        }
+        sendScrollMessage((long) (interval * powerIntervalFactor
+                + scroller.getDuration()/ autoScrollFactor * swipeScrollFactor));
     }
 
     /**
      * start auto scroll
      * 
-     * @param delayTimeInMills first scroll delay time
+     * @param delayTimeInMills first scroll delay time, stretched like every interval by the {@link PowerPolicy}
      */
     public void startAutoScroll(int delayTimeInMills) {
         isAutoScroll = true;
-        sendScrollMessage(delayTimeInMills);
+        sendScrollMessage((long)(delayTimeInMills * powerIntervalFactor));
     }
 
     /**
@@ -109,7 +250,8 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
      */
     public void stopAutoScroll() {
         isAutoScroll = false;
-        handler.removeMessages(SCROLL_WHAT);
+        restoredDelay = -1;
+        removeScrollMessage();
     }
 
     /**
@@ -127,24 +269,600 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
     }
 
     private void sendScrollMessage(long delayTimeInMills) {
+        nextScrollTime = SystemClock.uptimeMillis() + delayTimeInMills;
+        if (suspendFlags != 0) {
+            // posted again with the same delay once every suspend reason is gone
+            suspendedDelay = delayTimeInMills;
+            return;
+        }
+        sendPrefetchMessage(delayTimeInMills);
+        if (useSharedScheduler) {
+            AutoScrollScheduler.getInstance().schedule(this, delayTimeInMills);
+            return;
+        }
         /** remove messages before, keeps one message is running at most **/
         handler.removeMessages(SCROLL_WHAT);
         handler.sendEmptyMessageDelayed(SCROLL_WHAT, delayTimeInMills);
     }
 
+    private void removeScrollMessage() {
+        handler.removeMessages(SCROLL_WHAT);
+        handler.removeMessages(PREFETCH_WHAT);
+        if (useSharedScheduler) {
+            AutoScrollScheduler.getInstance().cancel(this);
+        }
+    }
+
+    /**
+     * suspend auto scroll for reason, it keeps the delay left of the pending scroll
+     * 
+     * @param reason one of SUSPEND_*
+     */
+    private void suspendAutoScroll(int reason) {
+        if ((suspendFlags & reason) != 0) {
+            return;
+        }
+        if (suspendFlags == 0 && isAutoScroll) {
+            suspendedDelay = Math.max(0, nextScrollTime - SystemClock.uptimeMillis());
+            removeScrollMessage();
+        }
+        suspendFlags |= reason;
+    }
+
+    /**
+     * resume auto scroll suspended for reason, the pending scroll runs after the delay that was left
+     * 
+     * @param reason one of SUSPEND_*
+     */
+    private void resumeAutoScroll(int reason) {
+        if ((suspendFlags & reason) == 0) {
+            return;
+        }
+        suspendFlags &= ~reason;
+        if (suspendFlags == 0 && isAutoScroll) {
+            sendScrollMessage(suspendedDelay);
+        }
+    }
+
+    @Override
+    protected void onSaveExtraState(Bundle extras) {
+        if (isAutoScroll) {
+            long delay = suspendFlags != 0 ? suspendedDelay : nextScrollTime - SystemClock.uptimeMillis();
+            extras.putLong(STATE_AUTO_SCROLL_DELAY, Math.max(0, delay));
+        }
+    }
+
+    @Override
+    protected void onRestoreExtraState(Bundle extras) {
+        long delay = extras.getLong(STATE_AUTO_SCROLL_DELAY, -1);
+        if (delay < 0) {
+            return;
+        }
+        if (isAutoScroll) {
+            sendScrollMessage(delay);
+        } else {
+            // auto scroll is usually started after the state is restored
+            restoredDelay = delay;
+        }
+    }
+
+    /**
+     * whether auto scroll is started but currently suspended, e.g. the pager is scrolled out of its parent's viewport
+     */
+    public boolean isAutoScrollSuspended() {
+        return isAutoScroll && suspendFlags != 0;
+    }
+
+    /**
+     * check the visible fraction of the pager against {@link #minVisibleFraction}
+     */
+    private void updateVisibleFraction() {
+        if (minVisibleFraction <= 0) {
+            resumeAutoScroll(SUSPEND_OUT_OF_VIEWPORT);
+            return;
+        }
+        // reuses visibleRect, getLocalVisibleRect does not allocate while attached
+        int area = getWidth() * getHeight();
+        float visibleFraction = 0;
+        if (area > 0 && getLocalVisibleRect(visibleRect)) {
+            visibleFraction = (float)(visibleRect.width() * visibleRect.height()) / area;
+        }
+        if (visibleFraction < minVisibleFraction) {
+            suspendAutoScroll(SUSPEND_OUT_OF_VIEWPORT);
+        } else {
+            resumeAutoScroll(SUSPEND_OUT_OF_VIEWPORT);
+        }
+    }
+
+    @Override
+    public void setAdapter(PagerAdapter adapter) {
+        PagerAdapter oldAdapter = getAdapter();
+        if (oldAdapter != null && prefetchObserver != null) {
+            oldAdapter.unregisterDataSetObserver(prefetchObserver);
+        }
+        cancelPrefetch();
+        super.setAdapter(adapter);
+        if (adapter != null && prefetchObserver != null) {
+            adapter.registerDataSetObserver(prefetchObserver);
+        }
+    }
+
+    /**
+     * post the prefetch for the auto scroll due after delayTimeInMills, {@link #prefetchLeadTime} before it
+     */
+    private void sendPrefetchMessage(long delayTimeInMills) {
+        handler.removeMessages(PREFETCH_WHAT);
+        if (prefetchCount > 0 && !isDragging && getAdapter() instanceof PagePrefetcher) {
+            handler.sendEmptyMessageDelayed(PREFETCH_WHAT, Math.max(0, delayTimeInMills - prefetchLeadTime));
+        }
+    }
+
+    /**
+     * announce the next {@link #prefetchCount} pages after the offscreen pages in prefetchDirection
+     * 
+     * @param prefetchDirection {@link #LEFT} or {@link #RIGHT}
+     */
+    private void prefetch(int prefetchDirection) {
+        PagerAdapter adapter = getAdapter();
+        if (!(adapter instanceof PagePrefetcher)) {
+            return;
+        }
+        int currentItem = getCurrentItem();
+        if (currentItem == prefetchedItem && prefetchDirection == prefetchedDirection) {
+            return;
+        }
+        prefetchedItem = currentItem;
+        prefetchedDirection = prefetchDirection;
+
+        int count = adapter.getCount();
+        int pageLimit = getOffscreenPageLimit();
+        boolean isWrapped = getWrapperAdapter() != null || isCycle;
+        for (int i = 1; i <= prefetchCount; i++) {
+            int distance = pageLimit + i;
+            if (distance >= count - pageLimit) {
+                // already kept as an offscreen page on the other side
+                break;
+            }
+            int position = (prefetchDirection == LEFT) ? currentItem - distance : currentItem + distance;
+            if (position < 0 || position >= count) {
+                if (!isWrapped) {
+                    break;
+                }
+                position = (position % count + count) % count;
+            }
+            ((PagePrefetcher)adapter).onPrefetch(position);
+        }
+    }
+
+    private void cancelPrefetch() {
+        handler.removeMessages(PREFETCH_WHAT);
+        prefetchedItem = -1;
+        prefetchedDirection = -1;
+        PagerAdapter adapter = getAdapter();
+        if (adapter instanceof PagePrefetcher) {
+            ((PagePrefetcher)adapter).onCancelPrefetch();
+        }
+    }
+
+    /**
+     * cancel outstanding requests and prefetch again for the pending auto scroll
+     */
+    private void restartPrefetch() {
+        cancelPrefetch();
+        if (isAutoScroll && suspendFlags == 0) {
+            sendPrefetchMessage(nextScrollTime - SystemClock.uptimeMillis());
+        }
+    }
+
+    @Override
+    protected void onPageScrollStateChanged(int state) {
+        super.onPageScrollStateChanged(state);
+        if (state == SCROLL_STATE_DRAGGING) {
+            // no lead time prefetch while the user drags, the drag direction decides
+            isDragging = true;
+            handler.removeMessages(PREFETCH_WHAT);
+        } else if (isDragging && state == SCROLL_STATE_IDLE) {
+            isDragging = false;
+            if (isAutoScroll && suspendFlags == 0) {
+                sendPrefetchMessage(nextScrollTime - SystemClock.uptimeMillis());
+            }
+        }
+    }
+
+    @Override
+    protected void onPageScrolled(int position, float offset, int offsetPixels) {
+        super.onPageScrolled(position, offset, offsetPixels);
+        if (isDragging && offset > 0) {
+            prefetch(position < getInnerCurrentItem() ? LEFT : RIGHT);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (minVisibleFraction > 0) {
+            visibilityTracker.register();
+        }
+        if (powerPolicy != null) {
+            PowerStateMonitor monitor = PowerStateMonitor.getInstance(getContext());
+            monitor.addListener(powerListener);
+            applyPowerState(monitor.getState());
+        }
+        resumeAutoScroll(SUSPEND_DETACHED);
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // removes the pending message, a detached pager is not referenced from the message queue
+        suspendAutoScroll(SUSPEND_DETACHED);
+        if (useSharedScheduler) {
+            AutoScrollScheduler.getInstance().release(this);
+        }
+        visibilityTracker.unregister();
+        if (powerPolicy != null) {
+            PowerStateMonitor.getInstance(getContext()).removeListener(powerListener);
+        }
+        flushTransitionStats();
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
+        }
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        if (visibility == View.VISIBLE) {
+            resumeAutoScroll(SUSPEND_WINDOW_HIDDEN);
+        } else {
+            suspendAutoScroll(SUSPEND_WINDOW_HIDDEN);
+        }
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        // may be called by the View constructor, before init()
+        if (handler == null) {
+            return;
+        }
+        if (isShown()) {
+            resumeAutoScroll(SUSPEND_HIDDEN);
+        } else {
+            suspendAutoScroll(SUSPEND_HIDDEN);
+        }
+    }
+
+    /**
+     * only called since jelly bean
+     */
+    @Override
+    public void onScreenStateChanged(int screenState) {
+        super.onScreenStateChanged(screenState);
+        if (screenState == View.SCREEN_STATE_ON) {
+            resumeAutoScroll(SUSPEND_SCREEN_OFF);
+        } else {
+            suspendAutoScroll(SUSPEND_SCREEN_OFF);
+        }
+    }
+
+    /**
+     * auto scroll once and schedule the next one, called by {@link MyHandler} or {@link AutoScrollScheduler}
+     */
+    void onAutoScrollDue() {
+        int qualityLevel = getAutoScrollQualityLevel();
+        scroller.setScrollDurationFactor(qualityLevel >= QUALITY_SHORT_DURATION ? autoScrollFactor
+                * reducedDurationFactor : autoScrollFactor);
+        isAutoScrolling = true;
+        try {
+            scrollOnce();
+        } finally {
+            // an adapter or listener throwing must not leave swipes with the auto scroll duration and quality
+            isAutoScrolling = false;
+            scroller.setScrollDurationFactor(swipeScrollFactor);
+        }
+        long scrollInterval = (long)(interval * powerIntervalFactor);
+        if (qualityLevel == QUALITY_INSTANT) {
+            if (qualityController != null && qualityController.getLevel() == QUALITY_INSTANT) {
+                qualityController.onInstantAdvance();
+            }
+            sendScrollMessage(scrollInterval);
+        } else {
+            sendScrollMessage(scrollInterval + scroller.getDuration());
+        }
+    }
+
+    /**
+     * quality level auto scroll runs at, {@link #QUALITY_INSTANT} while the power policy forbids animations
+     */
+    private int getAutoScrollQualityLevel() {
+        return isPowerAnimationAllowed ? getQualityLevel() : QUALITY_INSTANT;
+    }
+
+    /**
+     * get power policy, null by default
+     */
+    public PowerPolicy getPowerPolicy() {
+        return powerPolicy;
+    }
+
+    /**
+     * set the policy deciding how auto scroll runs in the current {@link PowerState}, null by default to ignore it.
+     * The state comes from the process wide {@link PowerStateMonitor}, which is only listened to while a pager with a
+     * policy is attached.
+     * 
+     * @param powerPolicy e.g. {@link DefaultPowerPolicy}
+     */
+    public void setPowerPolicy(PowerPolicy powerPolicy) {
+        boolean isAttached = (suspendFlags & SUSPEND_DETACHED) == 0;
+        PowerStateMonitor monitor = PowerStateMonitor.getInstance(getContext());
+        if (this.powerPolicy != null && isAttached) {
+            monitor.removeListener(powerListener);
+        }
+        this.powerPolicy = powerPolicy;
+        if (powerPolicy == null) {
+            applyPowerState(null);
+            return;
+        }
+        if (powerListener == null) {
+            powerListener = new PowerStateMonitor.OnPowerStateChangeListener() {
+
+                @Override
+                public void onPowerStateChanged(PowerState state) {
+                    applyPowerState(state);
+                }
+            };
+        }
+        if (isAttached) {
+            monitor.addListener(powerListener);
+            applyPowerState(monitor.getState());
+        }
+    }
+
+    private void applyPowerState(PowerState state) {
+        if (powerPolicy == null || state == null) {
+            isPowerAnimationAllowed = true;
+            powerIntervalFactor = 1;
+            resumeAutoScroll(SUSPEND_POWER);
+            return;
+        }
+        isPowerAnimationAllowed = powerPolicy.isAnimationAllowed(state);
+        powerIntervalFactor = Math.max(0, powerPolicy.getIntervalFactor(state));
+        if (powerPolicy.isAutoScrollSuspended(state)) {
+            suspendAutoScroll(SUSPEND_POWER);
+        } else {
+            resumeAutoScroll(SUSPEND_POWER);
+        }
+    }
+
+    /**
+     * set the listener receiving frame statistics of page transitions, null to stop collecting them. Stats are only
+     * collected while a listener is set.
+     * 
+     * @param listener
+     * @param batchSize number of transitions delivered together, stats left over are delivered when the pager is
+     * detached or {@link #flushTransitionStats()} is called
+     */
+    public void setOnTransitionStatsListener(OnTransitionStatsListener listener, int batchSize) {
+        flushTransitionStats();
+        if (scroller == null) {
+            return;
+        }
+        if (statsTracker == null && listener != null) {
+            createStatsTracker();
+        }
+        if (statsTracker != null) {
+            statsTracker.setListener(listener, batchSize);
+            releaseStatsTrackerIfUnused();
+        }
+    }
+
+    private void createStatsTracker() {
+        statsTracker = new TransitionStatsTracker();
+        statsTracker.setQualityController(qualityController);
+        scroller.setOnStartScrollListener(new CustomDurationScroller.OnStartScrollListener() {
+
+            @Override
+            public void onStartScroll(int duration) {
+                if (statsTracker != null) {
+                    // the window may have moved to another display, or the display changed its rate
+                    statsTracker.onTransitionStart(isAutoScrolling, duration, getFrameBudget());
+                }
+            }
+        });
+    }
+
+    /**
+     * @return frame time in nanoseconds of the display the pager is shown on, 60fps if its refresh rate is unknown
+     */
+    private long getFrameBudget() {
+        Display display = null;
+        if (android.os.Build.VERSION.SDK_INT >= 17) {
+            display = getDisplay();
+        }
+        if (display == null) {
+            WindowManager windowManager = (WindowManager)getContext().getSystemService(Context.WINDOW_SERVICE);
+            display = windowManager == null ? null : windowManager.getDefaultDisplay();
+        }
+        float refreshRate = display == null ? 0 : display.getRefreshRate();
+        // some devices report 0, or nonsense, before the display is set up
+        return refreshRate >= 24 ? (long)(1000000000L / refreshRate) : TransitionStatsTracker.DEFAULT_FRAME_BUDGET;
+    }
+
+    private void releaseStatsTrackerIfUnused() {
+        if (statsTracker != null && statsTracker.getListener() == null && statsTracker.getQualityController() == null) {
+            statsTracker = null;
+            scroller.setOnStartScrollListener(null);
+        }
+    }
+
+    /**
+     * whether adaptive quality is on, default is false
+     */
+    public boolean isAdaptiveQuality() {
+        return qualityController != null;
+    }
+
+    /**
+     * set whether auto scroll degrades while its transitions drop frames, default is false. After
+     * {@link #DEFAULT_DEGRADE_AFTER} janky auto scrolls in a row, a quarter of their frames over budget, the level goes
+     * one step from {@link #QUALITY_FULL} towards {@link #QUALITY_INSTANT}; after {@link #DEFAULT_RECOVER_AFTER} smooth
+     * ones it goes one step back. Swipes are never degraded. Turning it off restores {@link #QUALITY_FULL}.
+     * 
+     * @param adaptiveQuality
+     */
+    public void setAdaptiveQuality(boolean adaptiveQuality) {
+        if (adaptiveQuality == isAdaptiveQuality() || scroller == null) {
+            return;
+        }
+        if (adaptiveQuality) {
+            qualityController = new AdaptiveQualityController(new AdaptiveQualityController.OnLevelChangeListener() {
+
+                @Override
+                public void onLevelChanged(int level) {
+                    if (qualityLevelChangeListener != null) {
+                        qualityLevelChangeListener.onQualityLevelChanged(level);
+                    }
+                }
+            }, degradeAfter, recoverAfter);
+            qualityController.setMaxLevel(maxQualityLevel);
+            if (statsTracker == null) {
+                createStatsTracker();
+            }
+            statsTracker.setQualityController(qualityController);
+        } else {
+            boolean isDegraded = getQualityLevel() != QUALITY_FULL;
+            qualityController = null;
+            statsTracker.setQualityController(null);
+            releaseStatsTrackerIfUnused();
+            if (isDegraded && qualityLevelChangeListener != null) {
+                qualityLevelChangeListener.onQualityLevelChanged(QUALITY_FULL);
+            }
+        }
+    }
+
+    /**
+     * get current quality level of auto scroll, {@link #QUALITY_FULL} while adaptive quality is off
+     */
+    public int getQualityLevel() {
+        return qualityController == null ? QUALITY_FULL : qualityController.getLevel();
+    }
+
+    /**
+     * get lowest quality level adaptive quality may reach, default is {@link #QUALITY_INSTANT}
+     */
+    public int getMaxQualityLevel() {
+        return maxQualityLevel;
+    }
+
+    /**
+     * set lowest quality level adaptive quality may reach, default is {@link #QUALITY_INSTANT}
+     * 
+     * @param maxQualityLevel one of {@link #QUALITY_FULL}, {@link #QUALITY_SHORT_DURATION},
+     *        {@link #QUALITY_NO_BORDER_ANIMATION}, {@link #QUALITY_INSTANT}
+     */
+    public void setMaxQualityLevel(int maxQualityLevel) {
+        this.maxQualityLevel = Math.max(QUALITY_FULL, Math.min(QUALITY_INSTANT, maxQualityLevel));
+        if (qualityController != null) {
+            qualityController.setMaxLevel(this.maxQualityLevel);
+        }
+    }
+
+    /**
+     * set factor applied to the auto scroll duration from {@link #QUALITY_SHORT_DURATION} on, default is
+     * {@link #DEFAULT_REDUCED_DURATION_FACTOR}
+     * 
+     * @param reducedDurationFactor greater than 0, less than 1 to shorten
+     */
+    public void setReducedDurationFactor(double reducedDurationFactor) {
+        if (reducedDurationFactor > 0) {
+            this.reducedDurationFactor = reducedDurationFactor;
+        }
+    }
+
+    /**
+     * set how many janky auto scrolls in a row lower the quality level and how many smooth ones raise it, default is
+     * {@link #DEFAULT_DEGRADE_AFTER} and {@link #DEFAULT_RECOVER_AFTER}
+     * 
+     * @param degradeAfter at least 1
+     * @param recoverAfter at least 1
+     */
+    public void setQualityThresholds(int degradeAfter, int recoverAfter) {
+        this.degradeAfter = Math.max(1, degradeAfter);
+        this.recoverAfter = Math.max(1, recoverAfter);
+        if (qualityController != null) {
+            qualityController.setThresholds(this.degradeAfter, this.recoverAfter);
+        }
+    }
+
+    /**
+     * set the listener notified when adaptive quality changes the level, on the main thread
+     * 
+     * @param listener
+     */
+    public void setOnQualityLevelChangeListener(OnQualityLevelChangeListener listener) {
+        this.qualityLevelChangeListener = listener;
+    }
+
+    /**
+     * deliver the transition stats collected so far without waiting for a full batch
+     */
+    public void flushTransitionStats() {
+        if (statsTracker != null) {
+            statsTracker.flush();
+        }
+    }
+
+    @Override
+    public void computeScroll() {
+        super.computeScroll();
+        if (statsTracker != null) {
+            statsTracker.onFrame(scroller.isFinished());
+        }
+    }
+
     /**
      * set ViewPager scroller to change animation duration when sliding
      */
     private void setViewPagerScroller() {
         try {
-            Field scrollerField = ViewPager.class.getDeclaredField("mScroller");
-            scrollerField.setAccessible(true);
             Field interpolatorField = ViewPager.class.getDeclaredField("sInterpolator");
             interpolatorField.setAccessible(true);
+            // ViewPager's quintic curve is cheaper to compute than to look up, it is used as is
+            installScroller(new CustomDurationScroller(getContext(), (Interpolator)interpolatorField.get(null)));
+        } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
+            e.printStackTrace();
+        }
+    }
+
+    private void installScroller(CustomDurationScroller newScroller) throws Exception {
+        Field scrollerField = ViewPager.class.getDeclaredField("mScroller");
+        scrollerField.setAccessible(true);
+        if (scroller != null) {
+            newScroller.copySettings(scroller);
+        }
+        scrollerField.set(this, newScroller);
+        scroller = newScroller;
+    }
 
-            scroller = new CustomDurationScroller(getContext(), (Interpolator)interpolatorField.get(null));
-            scrollerField.set(this, scroller);
+    /**
+     * set the interpolator of the scroll animation, null for ViewPager's default. It is sampled into a
+     * {@link LookupTableInterpolator} once, so curves with exponentials or trigonometry cost a table lookup per frame.
+     * Settings of the scroller are kept, call it while the pager is not scrolling.
+     * 
+     * @param interpolator
+     */
+    public void setScrollInterpolator(Interpolator interpolator) {
+        if (interpolator == null) {
+            setViewPagerScroller();
+            return;
+        }
+        try {
+            installScroller(new CustomDurationScroller(getContext(), new LookupTableInterpolator(interpolator)));
         } catch (Exception e) {
+            PagerMetrics.onReflectionFailure();
             e.printStackTrace();
         }
     }
@@ -153,6 +871,15 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
      * scroll only once
      */
     public void scrollOnce() {
+        long beginTime = PagerMetrics.begin(PagerMetrics.SCROLL_ONCE);
+        try {
+            scrollOnceInternal();
+        } finally {
+            PagerMetrics.end(PagerMetrics.SCROLL_ONCE, beginTime);
+        }
+    }
+
+    private void scrollOnceInternal() {
         PagerAdapter adapter = getWrapperAdapter()==null?getAdapter():getWrapperAdapter();
         int currentItem = getInnerCurrentItem();
         int totalCount;
@@ -160,17 +887,20 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
             return;
         }
 
+        int qualityLevel = isAutoScrolling ? getAutoScrollQualityLevel() : QUALITY_FULL;
+        boolean borderAnimation = isBorderAnimation && qualityLevel < QUALITY_NO_BORDER_ANIMATION;
         int nextItem = (direction == LEFT) ? --currentItem : ++currentItem;
         if (nextItem < 0) {
             if (isCycle) {
-                setCurrentItem(totalCount - 1, isBorderAnimation);
+                setInnerCurrentItem(totalCount - 1, borderAnimation);
             }
         } else if (nextItem == totalCount) {
             if (isCycle) {
-                setCurrentItem(0, isBorderAnimation);
+                setInnerCurrentItem(0, borderAnimation);
             }
         } else {
-            setCurrentItem(nextItem, true);
+            // nextItem is virtual in loop mode
+            setInnerCurrentItem(nextItem, qualityLevel < QUALITY_INSTANT);
         }
     }
 
@@ -178,54 +908,134 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
      * <ul>
      * if stopScrollWhenTouch is true
      * <li>if event is down, stop auto scroll.</li>
-     * <li>if event is up, start auto scroll again.</li>
+     * <li>if event is up or cancel, start auto scroll again.</li>
      * </ul>
+     * Current item and page count are read once on down, the parent is only asked to change its intercept state
+     * when it differs from the last request.
      */
     @Override
     public boolean dispatchTouchEvent(MotionEvent ev) {
         int action = MotionEventCompat.getActionMasked(ev);
 
+        if (action == MotionEvent.ACTION_DOWN) {
+            downX = ev.getX();
+            gestureItem = getInnerCurrentItem();
+            PagerAdapter adapter = getWrapperAdapter() == null ? getAdapter() : getWrapperAdapter();
+            gesturePageCount = adapter == null ? 0 : adapter.getCount();
+            isGestureBorderCycled = false;
+            // ancestors clear their disallow intercept flag on every down
+            isParentInterceptDisallowed = false;
+        }
+
         if (stopScrollWhenTouch) {
             if ((action == MotionEvent.ACTION_DOWN) && isAutoScroll) {
                 isStopByTouch = true;
                 stopAutoScroll();
-            } else if (ev.getAction() == MotionEvent.ACTION_UP && isStopByTouch) {
+            } else if ((action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) && isStopByTouch) {
                 startAutoScroll();
             }
         }
 
+        boolean isVelocityAware = scroller != null && scroller.isVelocityAware();
+        if (isVelocityAware) {
+            if (velocityTracker == null) {
+                velocityTracker = VelocityTracker.obtain();
+            }
+            if (action == MotionEvent.ACTION_DOWN) {
+                velocityTracker.clear();
+            }
+            velocityTracker.addMovement(ev);
+            if (action == MotionEvent.ACTION_UP) {
+                velocityTracker.computeCurrentVelocity(1000, maxFlingVelocity);
+                // consumed by the settle scroll ViewPager starts on this up
+                scroller.setReleaseVelocity(velocityTracker.getXVelocity());
+            }
+        }
+
+        boolean disallowIntercept = true;
         if (slideBorderMode == SLIDE_BORDER_MODE_TO_PARENT || slideBorderMode == SLIDE_BORDER_MODE_CYCLE) {
             touchX = ev.getX();
-            if (ev.getAction() == MotionEvent.ACTION_DOWN) {
-                downX = touchX;
-            }
-            int currentItem = getInnerCurrentItem();
-            PagerAdapter adapter = getWrapperAdapter()==null?getAdapter():getWrapperAdapter();
-            int pageCount = adapter == null ? 0 : adapter.getCount();
             /**
              * current index is first one and slide to right or current index is last one and slide to left.<br/>
              * if slide border mode is to parent, then requestDisallowInterceptTouchEvent false.<br/>
              * else scroll to last one when current item is first one, scroll to first one when current item is last
-             * one.
+             * one, once per gesture.
              */
-            if ((currentItem == 0 && downX <= touchX) || (currentItem == pageCount - 1 && downX >= touchX)) {
+            if ((gestureItem == 0 && downX <= touchX) || (gestureItem == gesturePageCount - 1 && downX >= touchX)) {
                 if (slideBorderMode == SLIDE_BORDER_MODE_TO_PARENT) {
-                    getParent().requestDisallowInterceptTouchEvent(false);
-                } else {
-                    if (pageCount > 1) {
-                        setCurrentItem(pageCount - currentItem - 1, isBorderAnimation);
-                    }
-                    getParent().requestDisallowInterceptTouchEvent(true);
+                    disallowIntercept = false;
+                } else if (!isGestureBorderCycled && gesturePageCount > 1) {
+                    isGestureBorderCycled = true;
+                    setInnerCurrentItem(gesturePageCount - gestureItem - 1, isBorderAnimation);
+                    gestureItem = getInnerCurrentItem();
                 }
-                return super.dispatchTouchEvent(ev);
             }
         }
-        getParent().requestDisallowInterceptTouchEvent(true);
+        if (disallowIntercept != isParentInterceptDisallowed && getParent() != null) {
+            isParentInterceptDisallowed = disallowIntercept;
+            getParent().requestDisallowInterceptTouchEvent(disallowIntercept);
+        }
 
+        if (isVelocityAware && action == MotionEvent.ACTION_UP) {
+            boolean handled = super.dispatchTouchEvent(ev);
+            // an up that started no scroll must not hand its velocity to a later one
+            scroller.setReleaseVelocity(0);
+            return handled;
+        }
         return super.dispatchTouchEvent(ev);
     }
 
-    private class MyHandler extends Handler {
+    /**
+     * updates the visible fraction whenever anything in the window scrolls or is laid out
+     */
+    private class VisibilityTracker implements ViewTreeObserver.OnScrollChangedListener,
+            ViewTreeObserver.OnGlobalLayoutListener {
+
+        private ViewTreeObserver observer;
+
+        void register() {
+            if (observer != null) {
+                return;
+            }
+            observer = getViewTreeObserver();
+            observer.addOnScrollChangedListener(this);
+            observer.addOnGlobalLayoutListener(this);
+            updateVisibleFraction();
+        }
+
+        @SuppressWarnings("deprecation")
+        void unregister() {
+            if (observer == null) {
+                return;
+            }
+            if (observer.isAlive()) {
+                observer.removeOnScrollChangedListener(this);
+                observer.removeGlobalOnLayoutListener(this);
+            }
+            observer = null;
+        }
+
+        @Override
+        public void onScrollChanged() {
+            updateVisibleFraction();
+        }
+
+        @Override
+        public void onGlobalLayout() {
+            updateVisibleFraction();
+        }
+    }
+
+    /**
+     * static and only weakly referencing the pager, so a queued message never keeps a pager alive
+     */
+    private static class MyHandler extends Handler {
+
+        private final WeakReference<AutoScrollViewPager> autoScrollViewPager;
+
+        public MyHandler(AutoScrollViewPager autoScrollViewPager) {
+            this.autoScrollViewPager = new WeakReference<AutoScrollViewPager>(autoScrollViewPager);
+        }
 
         @Override
         public void handleMessage(Message msg) {
@@ -233,10 +1043,17 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
 
             switch (msg.what) {
                 case SCROLL_WHAT:
-                    scroller.setScrollDurationFactor(autoScrollFactor);
-                    scrollOnce();
-                    scroller.setScrollDurationFactor(swipeScrollFactor);
-                    sendScrollMessage(interval + scroller.getDuration());
+                    AutoScrollViewPager pager = autoScrollViewPager.get();
+                    if (pager != null) {
+                        pager.onAutoScrollDue();
+                    }
+                    break;
+                case PREFETCH_WHAT:
+                    pager = autoScrollViewPager.get();
+                    if (pager != null) {
+                        pager.prefetch(pager.direction);
+                    }
+                    break;
                 default:
                     break;
             }
@@ -276,7 +1093,10 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
      * @param direction {@link #LEFT} or {@link #RIGHT}, default is {@link #RIGHT}
      */
     public void setDirection(int direction) {
-        this.direction = direction;
+        if (this.direction != direction) {
+            this.direction = direction;
+            restartPrefetch();
+        }
     }
 
     /**
@@ -297,6 +1117,140 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
         this.isCycle = isCycle;
     }
 
+    /**
+     * whether auto scroll is driven by the process wide {@link AutoScrollScheduler}, default is false
+     * 
+     * @return the useSharedScheduler
+     */
+    public boolean isUseSharedScheduler() {
+        return useSharedScheduler;
+    }
+
+    /**
+     * set whether auto scroll is driven by the process wide {@link AutoScrollScheduler}, default is false. With many
+     * pagers on screen the scheduler ticks them from one frame callback and spreads their scroll animations over
+     * frames, see {@link AutoScrollScheduler#setMaxStartsPerFrame(int)} and
+     * {@link AutoScrollScheduler#setPhaseOffset(long)}.
+     * 
+     * @param useSharedScheduler
+     */
+    public void setUseSharedScheduler(boolean useSharedScheduler) {
+        if (this.useSharedScheduler == useSharedScheduler) {
+            return;
+        }
+        boolean wasAutoScroll = isAutoScroll;
+        stopAutoScroll();
+        if (this.useSharedScheduler) {
+            AutoScrollScheduler.getInstance().release(this);
+        }
+        this.useSharedScheduler = useSharedScheduler;
+        if (wasAutoScroll) {
+            startAutoScroll();
+        }
+    }
+
+    /**
+     * get the visible fraction below which auto scroll pauses, default is 0, never pause
+     * 
+     * @return the minVisibleFraction
+     */
+    public float getMinVisibleFraction() {
+        return minVisibleFraction;
+    }
+
+    /**
+     * set the visible fraction below which auto scroll pauses, default is 0, never pause. The fraction is the part of
+     * the pager's area inside its parents' viewport, e.g. a RecyclerView, ListView or ScrollView. When it rises to
+     * minVisibleFraction again, auto scroll resumes with the delay that was left.
+     * 
+     * @param minVisibleFraction in [0, 1]
+     */
+    public void setMinVisibleFraction(float minVisibleFraction) {
+        this.minVisibleFraction = Math.max(0f, Math.min(1f, minVisibleFraction));
+        if (this.minVisibleFraction > 0) {
+            if (getWindowToken() != null) {
+                visibilityTracker.register();
+            }
+        } else {
+            visibilityTracker.unregister();
+            resumeAutoScroll(SUSPEND_OUT_OF_VIEWPORT);
+        }
+    }
+
+    /**
+     * whether swipes settle in a duration derived from the release velocity and the remaining distance, default is
+     * false
+     */
+    public boolean isVelocityAwareScroll() {
+        return scroller != null && scroller.isVelocityAware();
+    }
+
+    /**
+     * set whether swipes settle in a duration derived from the release velocity and the remaining distance, default
+     * is false. Only durations derived from a release velocity are clamped by
+     * {@link #setScrollDurationRange(int, int)}, auto scroll and swipes without a release velocity keep their scroll
+     * factor, e.g. {@link #setAutoScrollDurationFactor(double)}.
+     * 
+     * @param velocityAwareScroll
+     */
+    public void setVelocityAwareScroll(boolean velocityAwareScroll) {
+        if (scroller != null) {
+            scroller.setVelocityAware(velocityAwareScroll);
+        }
+    }
+
+    /**
+     * set the range velocity aware durations are clamped to, default is
+     * {@link CustomDurationScroller#DEFAULT_MIN_DURATION} to {@link CustomDurationScroller#DEFAULT_MAX_DURATION}
+     * 
+     * @param minDuration in milliseconds
+     * @param maxDuration in milliseconds
+     */
+    public void setScrollDurationRange(int minDuration, int maxDuration) {
+        if (scroller != null) {
+            scroller.setDurationRange(minDuration, maxDuration);
+        }
+    }
+
+    /**
+     * get number of upcoming pages announced to a {@link PagePrefetcher}, default is {@link #DEFAULT_PREFETCH_COUNT}
+     * 
+     * @return the prefetchCount
+     */
+    public int getPrefetchCount() {
+        return prefetchCount;
+    }
+
+    /**
+     * set number of upcoming pages announced to a {@link PagePrefetcher}, default is {@link #DEFAULT_PREFETCH_COUNT}.
+     * They are the pages right after the offscreen pages in the scroll direction, 0 disables prefetch.
+     * 
+     * @param prefetchCount
+     */
+    public void setPrefetchCount(int prefetchCount) {
+        this.prefetchCount = Math.max(0, prefetchCount);
+        restartPrefetch();
+    }
+
+    /**
+     * get time in milliseconds before each auto scroll to prefetch, default is {@link #DEFAULT_PREFETCH_LEAD_TIME}
+     * 
+     * @return the prefetchLeadTime
+     */
+    public long getPrefetchLeadTime() {
+        return prefetchLeadTime;
+    }
+
+    /**
+     * set time in milliseconds before each auto scroll to prefetch, default is {@link #DEFAULT_PREFETCH_LEAD_TIME}
+     * 
+     * @param prefetchLeadTime
+     */
+    public void setPrefetchLeadTime(long prefetchLeadTime) {
+        this.prefetchLeadTime = Math.max(0, prefetchLeadTime);
+        restartPrefetch();
+    }
+
     /**
      * whether stop auto scroll when touching, default is true
      * 
@@ -352,4 +1306,27 @@ public class AutoScrollViewPager extends LoopCompatibleViewPager {
     public void setBorderAnimation(boolean isBorderAnimation) {
         this.isBorderAnimation = isBorderAnimation;
     }
+
+    /**
+     * receives {@link TransitionStats} of page transitions in batches, on the main thread
+     */
+    public interface OnTransitionStatsListener {
+
+        /**
+         * @param stats transitions in the order they finished, the list is not reused by the pager
+         */
+        void onTransitionStats(List<TransitionStats> stats);
+    }
+
+    /**
+     * notified when adaptive quality changes the quality level of auto scroll
+     */
+    public interface OnQualityLevelChangeListener {
+
+        /**
+         * @param level one of {@link #QUALITY_FULL}, {@link #QUALITY_SHORT_DURATION},
+         *        {@link #QUALITY_NO_BORDER_ANIMATION}, {@link #QUALITY_INSTANT}
+         */
+        void onQualityLevelChanged(int level);
+    }
 }
@@ -6,12 +6,35 @@ import android.widget.Scroller;
 
 /**
  * CustomDurationScroller
+ * <ul>
+ * <li>{@link #setScrollDurationFactor(double)} scale every duration by a factor</li>
+ * <li>{@link #setVelocityAware(boolean)} derive the duration of a scroll after a release from the release velocity
+ * and the remaining distance, see {@link #setReleaseVelocity(float)}, clamped by
+ * {@link #setDurationRange(int, int)}, other scrolls keep the factor</li>
+ * </ul>
  * 
  * @author <a href="http://www.trinea.cn" target="_blank">Trinea</a> 2014-3-2
  */
 public class CustomDurationScroller extends Scroller {
 
-    private double scrollFactor = 1;
+    /** default shortest duration of a velocity aware scroll in milliseconds **/
+    public static final int       DEFAULT_MIN_DURATION = 150;
+    /** default longest duration of a velocity aware scroll in milliseconds **/
+    public static final int       DEFAULT_MAX_DURATION = 600;
+    /**
+     * ViewPager's quintic ease out starts at 5 times the average speed, a scroll of distance d at release velocity v
+     * keeps the finger's speed if it lasts 5 * d / v
+     */
+    private static final float    VELOCITY_DURATION_FACTOR = 5f;
+
+    private double                scrollFactor = 1;
+    private boolean               isVelocityAware = false;
+    private int                   minDuration  = DEFAULT_MIN_DURATION;
+    private int                   maxDuration  = DEFAULT_MAX_DURATION;
+    /** velocity in pixels per second of the release the next scroll settles, 0 if unknown **/
+    private float                 releaseVelocity = 0;
+    /** notified when a scroll animation starts, null if nobody listens **/
+    private OnStartScrollListener onStartScrollListener;
 
     public CustomDurationScroller(Context context) {
         super(context);
@@ -40,8 +63,81 @@ public class CustomDurationScroller extends Scroller {
         this.scrollFactor = scrollFactor;
     }
 
+    /**
+     * whether durations come from the release velocity and the remaining distance, default is false
+     */
+    public boolean isVelocityAware() {
+        return isVelocityAware;
+    }
+
+    /**
+     * set whether durations come from the release velocity and the remaining distance, default is false. A scroll
+     * with a known release velocity lasts as long as keeps the finger's speed, clamped to the duration range. Other
+     * scrolls, auto scrolls included, keep the duration asked for times the scroll factor, unclamped.
+     */
+    public void setVelocityAware(boolean isVelocityAware) {
+        this.isVelocityAware = isVelocityAware;
+    }
+
+    /**
+     * set the range velocity aware durations are clamped to, default is {@link #DEFAULT_MIN_DURATION} to
+     * {@link #DEFAULT_MAX_DURATION}
+     * 
+     * @param minDuration in milliseconds
+     * @param maxDuration in milliseconds, not less than minDuration
+     */
+    public void setDurationRange(int minDuration, int maxDuration) {
+        this.minDuration = Math.max(0, minDuration);
+        this.maxDuration = Math.max(this.minDuration, maxDuration);
+    }
+
+    /**
+     * set the velocity of the release the next scroll settles, used once by a velocity aware scroller
+     * 
+     * @param releaseVelocity in pixels per second, 0 if the next scroll does not follow a release
+     */
+    public void setReleaseVelocity(float releaseVelocity) {
+        this.releaseVelocity = Math.abs(releaseVelocity);
+    }
+
+    /**
+     * take over the settings of a scroller this one replaces
+     */
+    void copySettings(CustomDurationScroller from) {
+        scrollFactor = from.scrollFactor;
+        isVelocityAware = from.isVelocityAware;
+        minDuration = from.minDuration;
+        maxDuration = from.maxDuration;
+        onStartScrollListener = from.onStartScrollListener;
+    }
+
+    void setOnStartScrollListener(OnStartScrollListener onStartScrollListener) {
+        this.onStartScrollListener = onStartScrollListener;
+    }
+
     @Override
     public void startScroll(int startX, int startY, int dx, int dy, int duration) {
-        super.startScroll(startX, startY, dx, dy, (int)(duration * scrollFactor));
+        int scaledDuration;
+        if (isVelocityAware && releaseVelocity > 0) {
+            // only a user's release is clamped, a factor set for slow auto scrolls must keep working
+            int distance = Math.max(Math.abs(dx), Math.abs(dy));
+            float velocityDuration = VELOCITY_DURATION_FACTOR * 1000 * distance / releaseVelocity;
+            scaledDuration = (int)Math.max(minDuration, Math.min(maxDuration, velocityDuration));
+        } else {
+            scaledDuration = (int)(duration * scrollFactor);
+        }
+        releaseVelocity = 0;
+        super.startScroll(startX, startY, dx, dy, scaledDuration);
+        if (onStartScrollListener != null) {
+            onStartScrollListener.onStartScroll(scaledDuration);
+        }
+    }
+
+    interface OnStartScrollListener {
+
+        /**
+         * @param duration duration of the animation in milliseconds, after the scroll factor is applied
+         */
+        void onStartScroll(int duration);
     }
 }
@@ -0,0 +1,88 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Default {@link PowerPolicy}
+ * <ul>
+ * <li>suspend while the screen is off, the battery is at {@link #DEFAULT_CRITICAL_BATTERY_LEVEL} or below and not
+ * charging, or the device is severely throttled</li>
+ * <li>no animation in battery saver, at {@link #DEFAULT_LOW_BATTERY_LEVEL} or below and not charging, or from moderate
+ * throttling on</li>
+ * <li>the interval is stretched by {@link #DEFAULT_INTERVAL_FACTOR} in battery saver, on low battery or from light
+ * throttling on</li>
+ * </ul>
+ * Without a thermal status, before Android 10, the battery temperature stands in for it.
+ */
+public class DefaultPowerPolicy implements PowerPolicy {
+
+    public static final int    DEFAULT_LOW_BATTERY_LEVEL      = 15;
+    public static final int    DEFAULT_CRITICAL_BATTERY_LEVEL = 5;
+    public static final double DEFAULT_INTERVAL_FACTOR        = 2;
+
+    /** battery temperatures in degrees Celsius taken as light, moderate and severe throttling **/
+    private static final float LIGHT_TEMPERATURE              = 40f;
+    private static final float MODERATE_TEMPERATURE           = 45f;
+    private static final float SEVERE_TEMPERATURE             = 50f;
+
+    private int                lowBatteryLevel                = DEFAULT_LOW_BATTERY_LEVEL;
+    private int                criticalBatteryLevel           = DEFAULT_CRITICAL_BATTERY_LEVEL;
+    private double             intervalFactor                 = DEFAULT_INTERVAL_FACTOR;
+
+    /**
+     * set battery levels in percent below which animation stops and auto scroll is suspended, default is
+     * {@link #DEFAULT_LOW_BATTERY_LEVEL} and {@link #DEFAULT_CRITICAL_BATTERY_LEVEL}. Pass -1 to ignore a level.
+     * 
+     * @param lowBatteryLevel
+     * @param criticalBatteryLevel
+     */
+    public void setBatteryLevels(int lowBatteryLevel, int criticalBatteryLevel) {
+        this.lowBatteryLevel = lowBatteryLevel;
+        this.criticalBatteryLevel = criticalBatteryLevel;
+    }
+
+    /**
+     * set factor the interval is stretched by, default is {@link #DEFAULT_INTERVAL_FACTOR}
+     * 
+     * @param intervalFactor at least 1
+     */
+    public void setIntervalFactor(double intervalFactor) {
+        this.intervalFactor = Math.max(1, intervalFactor);
+    }
+
+    @Override
+    public boolean isAutoScrollSuspended(PowerState state) {
+        return !state.isInteractive() || isBatteryAtOrBelow(state, criticalBatteryLevel)
+                || getThermalStatus(state) >= PowerState.THERMAL_STATUS_SEVERE;
+    }
+
+    @Override
+    public boolean isAnimationAllowed(PowerState state) {
+        return !state.isPowerSaveMode() && !isBatteryAtOrBelow(state, lowBatteryLevel)
+                && getThermalStatus(state) < PowerState.THERMAL_STATUS_MODERATE;
+    }
+
+    @Override
+    public double getIntervalFactor(PowerState state) {
+        return state.isPowerSaveMode() || isBatteryAtOrBelow(state, lowBatteryLevel)
+                || getThermalStatus(state) >= PowerState.THERMAL_STATUS_LIGHT ? intervalFactor : 1;
+    }
+
+    private static boolean isBatteryAtOrBelow(PowerState state, int level) {
+        return !state.isCharging() && state.getBatteryLevel() >= 0 && state.getBatteryLevel() <= level;
+    }
+
+    private static int getThermalStatus(PowerState state) {
+        if (state.getThermalStatus() != PowerState.THERMAL_STATUS_UNKNOWN) {
+            return state.getThermalStatus();
+        }
+        float temperature = state.getBatteryTemperature();
+        if (temperature >= SEVERE_TEMPERATURE) {
+            return PowerState.THERMAL_STATUS_SEVERE;
+        } else if (temperature >= MODERATE_TEMPERATURE) {
+            return PowerState.THERMAL_STATUS_MODERATE;
+        } else if (temperature >= LIGHT_TEMPERATURE) {
+            return PowerState.THERMAL_STATUS_LIGHT;
+        }
+        // also NaN
+        return PowerState.THERMAL_STATUS_NONE;
+    }
+}
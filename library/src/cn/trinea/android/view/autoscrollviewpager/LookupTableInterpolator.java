@@ -0,0 +1,39 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import android.view.animation.Interpolator;
+import cn.trinea.android.view.autoscrollviewpager.core.InterpolationTable;
+
+/**
+ * Interpolator precomputed from another one, {@link #getInterpolation(float)} does a table lookup instead of the
+ * source's maths on every frame
+ */
+public class LookupTableInterpolator implements Interpolator {
+
+    private final InterpolationTable table;
+
+    /**
+     * sample source with {@link InterpolationTable#DEFAULT_SAMPLE_COUNT} samples
+     * 
+     * @param source
+     */
+    public LookupTableInterpolator(Interpolator source) {
+        this(source, InterpolationTable.DEFAULT_SAMPLE_COUNT);
+    }
+
+    /**
+     * @param source
+     * @param sampleCount at least 2
+     */
+    public LookupTableInterpolator(Interpolator source, int sampleCount) {
+        float[] samples = new float[sampleCount];
+        for (int i = 0; i < sampleCount; i++) {
+            samples[i] = source.getInterpolation((float)i / (sampleCount - 1));
+        }
+        table = new InterpolationTable(samples);
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        return table.get(input);
+    }
+}
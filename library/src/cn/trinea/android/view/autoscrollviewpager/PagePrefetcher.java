@@ -0,0 +1,28 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Implemented by a {@link android.support.v4.view.PagerAdapter} set on {@link AutoScrollViewPager} to load data or
+ * bitmaps of upcoming pages before they are instantiated
+ * <ul>
+ * <li>{@link #onPrefetch(int)} is called {@link AutoScrollViewPager#getPrefetchLeadTime()} before each auto scroll, for
+ * the next {@link AutoScrollViewPager#getPrefetchCount()} pages after the offscreen pages in the scroll direction</li>
+ * <li>while the user drags, it is called once for the pages in the drag direction</li>
+ * <li>{@link #onCancelPrefetch()} is called when the auto scroll direction or the data set changes</li>
+ * </ul>
+ * Both are called on the main thread, loading should happen off it. The same position may be requested again, requests
+ * already running or done can be ignored.
+ */
+public interface PagePrefetcher {
+
+    /**
+     * start loading the page at position
+     * 
+     * @param position position in the adapter
+     */
+    void onPrefetch(int position);
+
+    /**
+     * cancel all unfinished requests started by {@link #onPrefetch(int)}
+     */
+    void onCancelPrefetch();
+}
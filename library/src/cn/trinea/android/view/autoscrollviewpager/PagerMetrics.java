@@ -0,0 +1,208 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+/**
+ * Counters and timers of the hot paths of {@link AutoScrollViewPager} and
+ * {@link android.support.v4.view.LoopCompatibleViewPager}, off by default
+ * <ul>
+ * <strong>Usage</strong>
+ * <li>{@link #setEnabled(boolean)} count calls and main thread time of each section</li>
+ * <li>{@link #setTraceEnabled(boolean)} also wrap each section in an {@link Trace} section, since api 18</li>
+ * <li>{@link #snapshot()} read the numbers collected since they were enabled or {@link #reset()}</li>
+ * </ul>
+ * Times are inclusive, e.g. {@link #POPULATE} contains the {@link #CALCULATE_PAGE_OFFSETS} it triggers. Failed
+ * reflective accesses to ViewPager internals are always counted. All methods must be called on the main thread, and
+ * the switches should not be flipped during a layout pass.
+ */
+public final class PagerMetrics {
+
+    public static final int       POPULATE                 = 0;
+    public static final int       CALCULATE_PAGE_OFFSETS   = 1;
+    public static final int       SORT_CHILD_DRAWING_ORDER = 2;
+    public static final int       INSTANTIATE_ITEM         = 3;
+    public static final int       DESTROY_ITEM             = 4;
+    public static final int       SCROLL_ONCE              = 5;
+    /** number of sections **/
+    public static final int       SECTION_COUNT            = 6;
+
+    private static final String[] SECTION_NAMES            = {"LoopPager.populate", "LoopPager.calculatePageOffsets",
+            "LoopPager.sortChildDrawingOrder", "LoopPager.instantiateItem", "LoopPager.destroyItem",
+            "AutoScrollViewPager.scrollOnce"                };
+
+    /** returned by {@link #begin(int)} when nothing is measured **/
+    private static final long     NOT_STARTED              = -1;
+
+    private static boolean        isEnabled                = false;
+    private static boolean        isTraceEnabled           = false;
+    private static final int[]    counts                   = new int[SECTION_COUNT];
+    private static final long[]   times                    = new long[SECTION_COUNT];
+    private static int            reflectionFailures       = 0;
+    /** when the counters were enabled or reset, in {@link SystemClock#uptimeMillis()} **/
+    private static long           startTime                = 0;
+
+    private PagerMetrics() {
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * switch counters and timers on or off, switching them on resets them
+     * 
+     * @param enabled
+     */
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !isEnabled) {
+            reset();
+        }
+        isEnabled = enabled;
+    }
+
+    public static boolean isTraceEnabled() {
+        return isTraceEnabled;
+    }
+
+    /**
+     * switch {@link Trace} sections on or off, ignored below api 18
+     * 
+     * @param traceEnabled
+     */
+    public static void setTraceEnabled(boolean traceEnabled) {
+        isTraceEnabled = traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    /**
+     * clear counters and timers, the reflection failure count is kept
+     */
+    public static void reset() {
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            counts[i] = 0;
+            times[i] = 0;
+        }
+        startTime = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * get a copy of the numbers collected so far
+     */
+    public static Snapshot snapshot() {
+        return new Snapshot(counts.clone(), times.clone(), reflectionFailures, SystemClock.uptimeMillis() - startTime);
+    }
+
+    /**
+     * enter a section, the result must be passed to {@link #end(int, long)}
+     * 
+     * @param section one of the section constants
+     */
+    public static long begin(int section) {
+        if (!isEnabled && !isTraceEnabled) {
+            return NOT_STARTED;
+        }
+        if (isTraceEnabled) {
+            beginTraceSection(SECTION_NAMES[section]);
+        }
+        return System.nanoTime();
+    }
+
+    /**
+     * leave a section
+     * 
+     * @param section the section passed to {@link #begin(int)}
+     * @param beginTime the value returned by {@link #begin(int)}
+     */
+    public static void end(int section, long beginTime) {
+        if (beginTime == NOT_STARTED) {
+            return;
+        }
+        if (isEnabled) {
+            counts[section]++;
+            times[section] += System.nanoTime() - beginTime;
+        }
+        if (isTraceEnabled) {
+            endTraceSection();
+        }
+    }
+
+    /**
+     * count a reflective access to ViewPager internals that failed
+     */
+    public static void onReflectionFailure() {
+        reflectionFailures++;
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void beginTraceSection(String name) {
+        Trace.beginSection(name);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+    private static void endTraceSection() {
+        Trace.endSection();
+    }
+
+    /**
+     * numbers of {@link PagerMetrics} at one moment
+     */
+    public static class Snapshot {
+
+        private final int[]  counts;
+        private final long[] times;
+        private final int    reflectionFailures;
+        private final long   elapsedTime;
+
+        Snapshot(int[] counts, long[] times, int reflectionFailures, long elapsedTime) {
+            this.counts = counts;
+            this.times = times;
+            this.reflectionFailures = reflectionFailures;
+            this.elapsedTime = elapsedTime;
+        }
+
+        /**
+         * get number of calls of section
+         */
+        public int getCount(int section) {
+            return counts[section];
+        }
+
+        /**
+         * get main thread time spent in section in milliseconds
+         */
+        public float getTime(int section) {
+            return times[section] / 1000000f;
+        }
+
+        /**
+         * get calls of section per minute of {@link #getElapsedTime()}, e.g. pages churned per minute for
+         * {@link #INSTANTIATE_ITEM}
+         */
+        public float getCountPerMinute(int section) {
+            return elapsedTime <= 0 ? 0 : counts[section] * 60000f / elapsedTime;
+        }
+
+        public int getReflectionFailures() {
+            return reflectionFailures;
+        }
+
+        /**
+         * get milliseconds since the counters were enabled or reset
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("PagerMetrics{elapsed=").append(elapsedTime).append("ms");
+            for (int i = 0; i < SECTION_COUNT; i++) {
+                builder.append(", ").append(SECTION_NAMES[i]).append('=').append(counts[i]).append('/')
+                        .append(getTime(i)).append("ms");
+            }
+            return builder.append(", reflectionFailures=").append(reflectionFailures).append('}').toString();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Decides how an {@link AutoScrollViewPager} auto scrolls in a {@link PowerState}, set by
+ * {@link AutoScrollViewPager#setPowerPolicy(PowerPolicy)}. Called on the main thread whenever the state changes.
+ */
+public interface PowerPolicy {
+
+    /**
+     * whether auto scroll is suspended, it resumes with the delay that was left once this returns false
+     */
+    boolean isAutoScrollSuspended(PowerState state);
+
+    /**
+     * whether auto scroll may animate, pages are swapped without animation otherwise
+     */
+    boolean isAnimationAllowed(PowerState state);
+
+    /**
+     * factor the auto scroll interval is multiplied by, 1 to keep it
+     */
+    double getIntervalFactor(PowerState state);
+}
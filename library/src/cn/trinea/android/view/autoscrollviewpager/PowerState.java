@@ -0,0 +1,116 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Power related state of the device, delivered by {@link PowerStateMonitor} to a {@link PowerPolicy}. Two states are
+ * equal when no policy input differs: the battery temperature only counts in whole degrees, and only when there is no
+ * thermal status for it to stand in for.
+ */
+public final class PowerState {
+
+    /** thermal status is not reported, before Android 10 **/
+    public static final int THERMAL_STATUS_UNKNOWN   = -1;
+    /** values below mirror PowerManager.THERMAL_STATUS_* **/
+    public static final int THERMAL_STATUS_NONE      = 0;
+    public static final int THERMAL_STATUS_LIGHT     = 1;
+    public static final int THERMAL_STATUS_MODERATE  = 2;
+    public static final int THERMAL_STATUS_SEVERE    = 3;
+    public static final int THERMAL_STATUS_CRITICAL  = 4;
+    public static final int THERMAL_STATUS_EMERGENCY = 5;
+    public static final int THERMAL_STATUS_SHUTDOWN  = 6;
+
+    private final boolean   isInteractive;
+    private final boolean   isPowerSaveMode;
+    private final boolean   isCharging;
+    private final int       batteryLevel;
+    private final float     batteryTemperature;
+    private final int       thermalStatus;
+
+    PowerState(boolean isInteractive, boolean isPowerSaveMode, boolean isCharging, int batteryLevel,
+            float batteryTemperature, int thermalStatus) {
+        this.isInteractive = isInteractive;
+        this.isPowerSaveMode = isPowerSaveMode;
+        this.isCharging = isCharging;
+        this.batteryLevel = batteryLevel;
+        this.batteryTemperature = batteryTemperature;
+        this.thermalStatus = thermalStatus;
+    }
+
+    /**
+     * whether the screen is on
+     */
+    public boolean isInteractive() {
+        return isInteractive;
+    }
+
+    /**
+     * whether battery saver is on, always false before lollipop
+     */
+    public boolean isPowerSaveMode() {
+        return isPowerSaveMode;
+    }
+
+    /**
+     * whether the device is plugged in
+     */
+    public boolean isCharging() {
+        return isCharging;
+    }
+
+    /**
+     * battery level in percent, -1 if unknown
+     */
+    public int getBatteryLevel() {
+        return batteryLevel;
+    }
+
+    /**
+     * battery temperature in degrees Celsius, {@link Float#NaN} if unknown
+     */
+    public float getBatteryTemperature() {
+        return batteryTemperature;
+    }
+
+    /**
+     * one of THERMAL_STATUS_*, {@link #THERMAL_STATUS_UNKNOWN} before Android 10
+     */
+    public int getThermalStatus() {
+        return thermalStatus;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PowerState)) {
+            return false;
+        }
+        PowerState other = (PowerState)o;
+        return isInteractive == other.isInteractive && isPowerSaveMode == other.isPowerSaveMode
+                && isCharging == other.isCharging && batteryLevel == other.batteryLevel
+                && thermalStatus == other.thermalStatus
+                && Float.compare(getPolicyTemperature(), other.getPolicyTemperature()) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = (isInteractive ? 1 : 0) | (isPowerSaveMode ? 2 : 0) | (isCharging ? 4 : 0);
+        result = 31 * result + batteryLevel;
+        result = 31 * result + Float.floatToIntBits(getPolicyTemperature());
+        return 31 * result + thermalStatus;
+    }
+
+    /**
+     * battery temperature as far as equality goes, broadcasts come with every tenth of a degree
+     */
+    private float getPolicyTemperature() {
+        return thermalStatus == THERMAL_STATUS_UNKNOWN ? (float)Math.floor(batteryTemperature) : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "PowerState{interactive=" + isInteractive + ", powerSave=" + isPowerSaveMode + ", charging="
+                + isCharging + ", battery=" + batteryLevel + "%, temperature=" + batteryTemperature + ", thermal="
+                + thermalStatus + "}";
+    }
+}
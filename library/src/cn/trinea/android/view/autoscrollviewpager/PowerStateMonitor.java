@@ -0,0 +1,183 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.PowerManager;
+
+/**
+ * Process wide source of {@link PowerState}, one broadcast receiver for all listening pagers instead of one per view
+ * <ul>
+ * <li>screen on and off, battery saver changes and battery changes are received while at least one listener is
+ * registered</li>
+ * <li>the thermal status has no broadcast, it is read again on each of them, battery changes come with every
+ * temperature change</li>
+ * <li>listeners are only notified when the state changed in a way a {@link PowerPolicy} can tell, see
+ * {@link PowerState}</li>
+ * </ul>
+ * All methods must be called on the main thread.
+ */
+public class PowerStateMonitor {
+
+    /** PowerManager.ACTION_POWER_SAVE_MODE_CHANGED, added in lollipop **/
+    private static final String ACTION_POWER_SAVE_MODE_CHANGED = "android.os.action.POWER_SAVE_MODE_CHANGED";
+    private static final int    VERSION_CODES_LOLLIPOP         = 21;
+    private static final int    VERSION_CODES_Q                = 29;
+
+    private static PowerStateMonitor instance;
+
+    private final Context       context;
+    private final PowerManager  powerManager;
+    private final ArrayList<OnPowerStateChangeListener> listeners = new ArrayList<OnPowerStateChangeListener>();
+    private final BroadcastReceiver receiver;
+    private PowerState          state;
+    /** last battery values, kept when another broadcast triggers an update **/
+    private boolean             isCharging                     = false;
+    private int                 batteryLevel                   = -1;
+    private float               batteryTemperature             = Float.NaN;
+    private Method              isPowerSaveModeMethod;
+    private Method              getCurrentThermalStatusMethod;
+
+    private PowerStateMonitor(Context context) {
+        this.context = context.getApplicationContext();
+        powerManager = (PowerManager)this.context.getSystemService(Context.POWER_SERVICE);
+        if (Build.VERSION.SDK_INT >= VERSION_CODES_LOLLIPOP) {
+            isPowerSaveModeMethod = resolve("isPowerSaveMode");
+        }
+        if (Build.VERSION.SDK_INT >= VERSION_CODES_Q) {
+            getCurrentThermalStatusMethod = resolve("getCurrentThermalStatus");
+        }
+        receiver = new BroadcastReceiver() {
+
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                if (Intent.ACTION_BATTERY_CHANGED.equals(intent.getAction())) {
+                    readBattery(intent);
+                }
+                update();
+            }
+        };
+    }
+
+    /**
+     * get the monitor shared by the whole process, must be called on the main thread
+     */
+    public static PowerStateMonitor getInstance(Context context) {
+        if (instance == null) {
+            instance = new PowerStateMonitor(context);
+        }
+        return instance;
+    }
+
+    /**
+     * get current state, read now if no listener is registered
+     */
+    public PowerState getState() {
+        if (listeners.isEmpty()) {
+            readBattery(context.registerReceiver(null, new IntentFilter(Intent.ACTION_BATTERY_CHANGED)));
+            state = readState();
+        }
+        return state;
+    }
+
+    /**
+     * register listener, the first one starts receiving broadcasts
+     * 
+     * @param listener
+     */
+    public void addListener(OnPowerStateChangeListener listener) {
+        if (listeners.contains(listener)) {
+            return;
+        }
+        if (listeners.isEmpty()) {
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_SCREEN_ON);
+            filter.addAction(Intent.ACTION_SCREEN_OFF);
+            filter.addAction(ACTION_POWER_SAVE_MODE_CHANGED);
+            filter.addAction(Intent.ACTION_BATTERY_CHANGED);
+            // battery changed is sticky, the current values come back right away
+            readBattery(context.registerReceiver(receiver, filter));
+            state = readState();
+        }
+        listeners.add(listener);
+    }
+
+    /**
+     * unregister listener, the last one stops receiving broadcasts
+     * 
+     * @param listener
+     */
+    public void removeListener(OnPowerStateChangeListener listener) {
+        if (listeners.remove(listener) && listeners.isEmpty()) {
+            context.unregisterReceiver(receiver);
+        }
+    }
+
+    private void update() {
+        PowerState newState = readState();
+        if (newState.equals(state)) {
+            return;
+        }
+        state = newState;
+        // a listener may unregister itself
+        for (int i = listeners.size() - 1; i >= 0; i--) {
+            if (i < listeners.size()) {
+                listeners.get(i).onPowerStateChanged(newState);
+            }
+        }
+    }
+
+    private void readBattery(Intent intent) {
+        if (intent == null) {
+            return;
+        }
+        isCharging = intent.getIntExtra(BatteryManager.EXTRA_PLUGGED, 0) != 0;
+        int level = intent.getIntExtra(BatteryManager.EXTRA_LEVEL, -1);
+        int scale = intent.getIntExtra(BatteryManager.EXTRA_SCALE, -1);
+        batteryLevel = level >= 0 && scale > 0 ? level * 100 / scale : -1;
+        int temperature = intent.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, Integer.MIN_VALUE);
+        // in tenths of a degree
+        batteryTemperature = temperature == Integer.MIN_VALUE ? Float.NaN : temperature / 10f;
+    }
+
+    @SuppressWarnings("deprecation")
+    private PowerState readState() {
+        boolean isPowerSaveMode = false;
+        int thermalStatus = PowerState.THERMAL_STATUS_UNKNOWN;
+        try {
+            if (isPowerSaveModeMethod != null) {
+                isPowerSaveMode = (Boolean)isPowerSaveModeMethod.invoke(powerManager);
+            }
+            if (getCurrentThermalStatusMethod != null) {
+                thermalStatus = (Integer)getCurrentThermalStatusMethod.invoke(powerManager);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return new PowerState(powerManager.isScreenOn(), isPowerSaveMode, isCharging, batteryLevel, batteryTemperature,
+                thermalStatus);
+    }
+
+    private static Method resolve(String name) {
+        try {
+            return PowerManager.class.getMethod(name);
+        } catch (Exception e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * notified on the main thread when the {@link PowerState} changed
+     */
+    public interface OnPowerStateChangeListener {
+
+        void onPowerStateChanged(PowerState state);
+    }
+}
@@ -0,0 +1,77 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+/**
+ * Frame statistics of one page transition of {@link AutoScrollViewPager}, from the start of the scroll animation to
+ * the frame it finished or was interrupted
+ * <ul>
+ * <li>{@link #isAutoScroll()} whether the transition was started by auto scroll or by a swipe</li>
+ * <li>{@link #getFrameCount()} frames rendered while the animation ran</li>
+ * <li>{@link #getJankFrameCount()} frames over budget, i.e. taking longer than one and a half frame budgets</li>
+ * <li>{@link #getMaxFrameTime()} longest frame in milliseconds</li>
+ * <li>{@link #getDuration()} and {@link #getRequestedDuration()} actual and requested animation duration in
+ * milliseconds</li>
+ * </ul>
+ */
+public class TransitionStats {
+
+    private final boolean isAutoScroll;
+    private final int     frameCount;
+    private final int     jankFrameCount;
+    private final float   maxFrameTime;
+    private final float   duration;
+    private final int     requestedDuration;
+
+    TransitionStats(boolean isAutoScroll, int frameCount, int jankFrameCount, float maxFrameTime, float duration,
+            int requestedDuration) {
+        this.isAutoScroll = isAutoScroll;
+        this.frameCount = frameCount;
+        this.jankFrameCount = jankFrameCount;
+        this.maxFrameTime = maxFrameTime;
+        this.duration = duration;
+        this.requestedDuration = requestedDuration;
+    }
+
+    /**
+     * whether the transition was started by auto scroll, false if it settled a swipe or
+     * {@link AutoScrollViewPager#setCurrentItem(int, boolean)} was called
+     */
+    public boolean isAutoScroll() {
+        return isAutoScroll;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    public int getJankFrameCount() {
+        return jankFrameCount;
+    }
+
+    /**
+     * longest frame in milliseconds
+     */
+    public float getMaxFrameTime() {
+        return maxFrameTime;
+    }
+
+    /**
+     * actual duration in milliseconds
+     */
+    public float getDuration() {
+        return duration;
+    }
+
+    /**
+     * duration requested from the scroller in milliseconds, after the scroll factor is applied
+     */
+    public int getRequestedDuration() {
+        return requestedDuration;
+    }
+
+    @Override
+    public String toString() {
+        return "TransitionStats{auto=" + isAutoScroll + ", frames=" + frameCount + ", jank=" + jankFrameCount
+                + ", maxFrame=" + maxFrameTime + "ms, duration=" + duration + "ms, requested=" + requestedDuration
+                + "ms}";
+    }
+}
@@ -0,0 +1,124 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects {@link TransitionStats} of an {@link AutoScrollViewPager}, only created when a listener is registered or
+ * adaptive quality is on
+ */
+class TransitionStatsTracker {
+
+    /** 60fps frame budget in nanoseconds, when the refresh rate of the display is unknown **/
+    static final long                         DEFAULT_FRAME_BUDGET = 1000000000L / 60;
+
+    private static final float                NANOS_PER_MILLI      = 1000000f;
+
+    private AutoScrollViewPager.OnTransitionStatsListener listener;
+    private int                               batchSize            = 1;
+    /** frame time of the display in nanoseconds, set for each transition **/
+    private long                              frameBudget          = DEFAULT_FRAME_BUDGET;
+    private ArrayList<TransitionStats>        pending              = new ArrayList<TransitionStats>();
+    private AdaptiveQualityController         qualityController;
+
+    private boolean                           isTracking           = false;
+    private boolean                           isAutoScroll;
+    private int                               requestedDuration;
+    private long                              startTime, lastFrameTime, maxFrameTime;
+    private int                               frameCount, jankFrameCount;
+
+    /**
+     * @param listener null to stop delivering stats, the pending ones are dropped
+     * @param batchSize
+     */
+    void setListener(AutoScrollViewPager.OnTransitionStatsListener listener, int batchSize) {
+        this.listener = listener;
+        this.batchSize = Math.max(1, batchSize);
+        if (listener == null) {
+            pending.clear();
+        }
+    }
+
+    AutoScrollViewPager.OnTransitionStatsListener getListener() {
+        return listener;
+    }
+
+    void setQualityController(AdaptiveQualityController qualityController) {
+        this.qualityController = qualityController;
+    }
+
+    AdaptiveQualityController getQualityController() {
+        return qualityController;
+    }
+
+    /**
+     * a scroll animation starts, an unfinished one is closed first
+     * 
+     * @param frameBudget frame time in nanoseconds of the display the transition is shown on
+     */
+    void onTransitionStart(boolean isAutoScroll, int requestedDuration, long frameBudget) {
+        if (isTracking) {
+            onTransitionEnd();
+        }
+        isTracking = true;
+        this.frameBudget = frameBudget;
+        this.isAutoScroll = isAutoScroll;
+        this.requestedDuration = requestedDuration;
+        startTime = lastFrameTime = System.nanoTime();
+        maxFrameTime = 0;
+        frameCount = 0;
+        jankFrameCount = 0;
+    }
+
+    /**
+     * called from {@link AutoScrollViewPager#computeScroll()} once per frame
+     * 
+     * @param isFinished whether the scroller is finished after this frame
+     */
+    void onFrame(boolean isFinished) {
+        if (!isTracking) {
+            return;
+        }
+        long now = System.nanoTime();
+        long frameTime = now - lastFrameTime;
+        lastFrameTime = now;
+        frameCount++;
+        if (frameTime > maxFrameTime) {
+            maxFrameTime = frameTime;
+        }
+        // a frame longer than one and a half budgets missed at least one vsync
+        if (frameTime * 2 > frameBudget * 3) {
+            jankFrameCount++;
+        }
+        if (isFinished) {
+            onTransitionEnd();
+        }
+    }
+
+    private void onTransitionEnd() {
+        isTracking = false;
+        if (qualityController != null && isAutoScroll) {
+            qualityController.onAutoTransition(frameCount, jankFrameCount);
+        }
+        if (listener == null) {
+            return;
+        }
+        pending.add(new TransitionStats(isAutoScroll, frameCount, jankFrameCount, maxFrameTime / NANOS_PER_MILLI,
+                (lastFrameTime - startTime) / NANOS_PER_MILLI, requestedDuration));
+        if (pending.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * deliver the collected stats now, even if the batch is not full
+     */
+    void flush() {
+        if (listener == null || pending.isEmpty()) {
+            return;
+        }
+        List<TransitionStats> batch = pending;
+        pending = new ArrayList<TransitionStats>(batchSize);
+        listener.onTransitionStats(batch);
+    }
+}
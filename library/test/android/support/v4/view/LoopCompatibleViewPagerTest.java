@@ -0,0 +1,391 @@
+package android.support.v4.view;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.internal.DoNotInstrument;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.app.Activity;
+import android.os.Parcel;
+import android.os.Parcelable;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+/**
+ * Data set changes of {@link LoopCompatibleViewPager} in loop mode, checked through the position index the pager
+ * keeps over ViewPager's items
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19)
+@DoNotInstrument
+public class LoopCompatibleViewPagerTest {
+
+    private static final int WIDTH  = 1080;
+    private static final int HEIGHT = 600;
+
+    private Activity                activity;
+    private LoopCompatibleViewPager pager;
+    private StringAdapter           adapter;
+
+    @Before
+    public void setUp() {
+        activity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        // Robolectric runs the pending traversals inside addView otherwise, populate would re-enter from
+        // instantiateItem; the tests lay the pager out themselves
+        ShadowLooper.pauseMainLooper();
+        pager = newPager();
+        adapter = new StringAdapter(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        pager.setAdapter(adapter);
+        layout();
+    }
+
+    @Test
+    public void removePagesBeforeCurrent() {
+        pager.setCurrentItem(4, false);
+        layout();
+        assertCurrent("E");
+
+        adapter.remove("A", "B", "C");
+        layout();
+        assertEquals(1, pager.getCurrentItem());
+        assertCurrent("E");
+    }
+
+    @Test
+    public void removeCurrentAndFollowingPages() {
+        pager.setCurrentItem(4, false);
+        layout();
+
+        adapter.remove("E", "F");
+        layout();
+        assertCurrent(adapter.items.get(pager.getCurrentItem()));
+    }
+
+    @Test
+    public void replaceAdapterWithFewerPages() {
+        pager.setCurrentItem(3, false);
+        layout();
+
+        adapter = new StringAdapter(Arrays.asList("X", "Y"));
+        pager.setAdapter(adapter);
+        layout();
+        assertEquals(0, pager.getCurrentItem());
+        assertCurrent("X");
+    }
+
+    @Test
+    public void childrenFollowTheWindow() {
+        pager.setCurrentItem(5, false);
+        layout();
+        assertCurrent("F");
+
+        pager.setCurrentItem(2, false);
+        layout();
+        assertCurrent("C");
+    }
+
+    @Test
+    public void insertKeepsPagesOfStableIdAdapter() {
+        adapter = new StableIdStringAdapter(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        pager.setAdapter(adapter);
+        pager.setCurrentItem(2, false);
+        layout();
+        Map<String, View> pages = pagesByItem();
+        int instantiated = adapter.instantiated;
+        int destroyed = adapter.destroyed;
+
+        adapter.insert(0, "X");
+        layout();
+        assertEquals(3, pager.getCurrentItem());
+        assertCurrent("C");
+        // A to E are still the window around C, no page is rebuilt
+        assertEquals(pages, pagesByItem());
+        assertEquals(instantiated, adapter.instantiated);
+        assertEquals(destroyed, adapter.destroyed);
+    }
+
+    @Test
+    public void moveKeepsPagesOfStableIdAdapter() {
+        adapter = new StableIdStringAdapter(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        pager.setAdapter(adapter);
+        pager.setCurrentItem(2, false);
+        layout();
+        Map<String, View> pages = pagesByItem();
+        int instantiated = adapter.instantiated;
+        int destroyed = adapter.destroyed;
+
+        // E moves next to C, the window around C keeps the same items in a new order
+        adapter.move("E", 3);
+        layout();
+        assertEquals(2, pager.getCurrentItem());
+        assertCurrent("C");
+        Map<String, View> moved = pagesByItem();
+        for (String item : Arrays.asList("A", "B", "C", "D", "E")) {
+            assertSame(pages.get(item), moved.get(item));
+        }
+        assertEquals(pager.getInnerCurrentItem() + 1, pager.infoForChild(moved.get("E")).position);
+        assertEquals(instantiated, adapter.instantiated);
+        assertEquals(destroyed, adapter.destroyed);
+    }
+
+    @Test
+    public void removeKeepsOtherPagesOfStableIdAdapter() {
+        adapter = new StableIdStringAdapter(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        pager.setAdapter(adapter);
+        pager.setCurrentItem(2, false);
+        layout();
+        Map<String, View> pages = pagesByItem();
+        int destroyed = adapter.destroyed;
+
+        adapter.remove("B");
+        layout();
+        assertEquals(1, pager.getCurrentItem());
+        assertCurrent("C");
+        Map<String, View> removed = pagesByItem();
+        for (String item : Arrays.asList("A", "C", "D", "E")) {
+            assertSame(pages.get(item), removed.get(item));
+        }
+        assertEquals(destroyed + 1, adapter.destroyed);
+    }
+
+    @Test
+    public void recenterKeepsTheRealItemAndOffsets() {
+        int virtualCount = LoopPositions.virtualCount(adapter.getCount());
+        // real item E in the last cycle, closer to the end than the offscreen limit plus a cycle
+        pager.setInnerCurrentItem(virtualCount - 2, false);
+        layout();
+        assertCurrent("E");
+        Map<String, Float> offsets = pageOffsets();
+        int screenLeft = screenLeftOfCurrent();
+
+        pager.recenterIfNeeded();
+        layout();
+        assertTrue(pager.getInnerCurrentItem() < virtualCount - 2);
+        assertEquals(4, pager.getCurrentItem());
+        assertCurrent("E");
+        // pages that were there keep their offsets, the window may grow now that there is room on both sides
+        Map<String, Float> recentered = pageOffsets();
+        for (Map.Entry<String, Float> entry : offsets.entrySet()) {
+            assertEquals(entry.getValue(), recentered.get(entry.getKey()));
+        }
+        assertEquals(screenLeft, screenLeftOfCurrent());
+    }
+
+    @Test
+    public void restoreAfterAdapter() {
+        pager.setCurrentItem(4, false);
+        layout();
+        Parcelable state = parcel(pager.onSaveInstanceState());
+
+        // a new pager, as after a configuration change, with the adapter set before the state is restored
+        pager = newPager();
+        adapter = new StringAdapter(adapter.items);
+        pager.setAdapter(adapter);
+        pager.onRestoreInstanceState(state);
+        layout();
+        assertEquals(4, pager.getCurrentItem());
+        assertCurrent("E");
+    }
+
+    @Test
+    public void restoreBeforeAdapter() {
+        pager.setCurrentItem(4, false);
+        layout();
+        Parcelable state = parcel(pager.onSaveInstanceState());
+
+        // the state is restored first, setAdapter picks the real position up
+        pager = newPager();
+        pager.onRestoreInstanceState(state);
+        adapter = new StringAdapter(adapter.items);
+        pager.setAdapter(adapter);
+        layout();
+        assertEquals(4, pager.getCurrentItem());
+        assertCurrent("E");
+    }
+
+    @Test
+    public void restoreClampsToFewerItems() {
+        pager.setCurrentItem(5, false);
+        layout();
+        Parcelable state = parcel(pager.onSaveInstanceState());
+
+        pager = newPager();
+        adapter = new StringAdapter(Arrays.asList("A", "B", "C"));
+        pager.setAdapter(adapter);
+        pager.onRestoreInstanceState(state);
+        layout();
+        assertEquals(2, pager.getCurrentItem());
+        assertCurrent("C");
+    }
+
+    private LoopCompatibleViewPager newPager() {
+        LoopCompatibleViewPager newPager = new LoopCompatibleViewPager(activity);
+        newPager.setOffscreenPageLimit(2);
+        activity.setContentView(newPager);
+        return newPager;
+    }
+
+    /**
+     * state written to a parcel and read back, as the framework does across a configuration change
+     */
+    private static Parcelable parcel(Parcelable state) {
+        assertTrue(state instanceof LoopCompatibleViewPager.LoopSavedState);
+        Parcel parcel = Parcel.obtain();
+        try {
+            state.writeToParcel(parcel, 0);
+            parcel.setDataPosition(0);
+            return LoopCompatibleViewPager.LoopSavedState.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+
+    private void layout() {
+        pager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        pager.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * offset of every page relative to the current page, by item
+     */
+    private Map<String, Float> pageOffsets() {
+        float currentOffset = pager.infoForPosition(pager.getInnerCurrentItem()).offset;
+        Map<String, Float> offsets = new HashMap<String, Float>();
+        for (int i = 0; i < pager.getChildCount(); i++) {
+            ViewPager.ItemInfo ii = pager.infoForChild(pager.getChildAt(i));
+            offsets.put(((TextView)ii.object).getText().toString(), ii.offset - currentOffset);
+        }
+        return offsets;
+    }
+
+    private Map<String, View> pagesByItem() {
+        Map<String, View> pages = new HashMap<String, View>();
+        for (int i = 0; i < pager.getChildCount(); i++) {
+            View child = pager.getChildAt(i);
+            pages.put(((TextView)child).getText().toString(), child);
+        }
+        return pages;
+    }
+
+    private int screenLeftOfCurrent() {
+        ViewPager.ItemInfo current = pager.infoForPosition(pager.getInnerCurrentItem());
+        return ((View)current.object).getLeft() - pager.getScrollX();
+    }
+
+    /**
+     * the item the index returns for the current position shows item, and every page maps back to its own item
+     */
+    private void assertCurrent(String item) {
+        ViewPager.ItemInfo current = pager.infoForPosition(pager.getInnerCurrentItem());
+        assertNotNull(current);
+        assertEquals(item, ((TextView)current.object).getText().toString());
+        for (int i = 0; i < pager.getChildCount(); i++) {
+            View child = pager.getChildAt(i);
+            ViewPager.ItemInfo ii = pager.infoForChild(child);
+            assertNotNull(ii);
+            assertSame(child, ii.object);
+            assertSame(ii, pager.infoForPosition(ii.position));
+        }
+    }
+
+    /**
+     * one TextView per item, pages of removed items are dropped and the others follow their item
+     */
+    private static class StringAdapter extends PagerAdapter {
+
+        final List<String> items;
+        int                instantiated;
+        int                destroyed;
+
+        StringAdapter(List<String> items) {
+            this.items = new ArrayList<String>(items);
+        }
+
+        void remove(String... removed) {
+            items.removeAll(Arrays.asList(removed));
+            notifyDataSetChanged();
+        }
+
+        void insert(int position, String item) {
+            items.add(position, item);
+            notifyDataSetChanged();
+        }
+
+        void move(String item, int position) {
+            items.remove(item);
+            items.add(position, item);
+            notifyDataSetChanged();
+        }
+
+        @Override
+        public int getCount() {
+            return items.size();
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            TextView page = new TextView(container.getContext());
+            page.setText(items.get(position));
+            container.addView(page);
+            instantiated++;
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            container.removeView((View)object);
+            destroyed++;
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            int position = items.indexOf(((TextView)object).getText().toString());
+            return position < 0 ? POSITION_NONE : position;
+        }
+    }
+
+    /**
+     * pages follow their item by id, {@link #getItemPosition(Object)} only reports removed items
+     */
+    private static class StableIdStringAdapter extends StringAdapter
+            implements InfiniteLoopPagerAdapter.StableIdAdapter {
+
+        StableIdStringAdapter(List<String> items) {
+            super(items);
+        }
+
+        @Override
+        public long getItemId(int position) {
+            return items.get(position).hashCode();
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            return items.contains(((TextView)object).getText().toString()) ? POSITION_UNCHANGED : POSITION_NONE;
+        }
+    }
+}
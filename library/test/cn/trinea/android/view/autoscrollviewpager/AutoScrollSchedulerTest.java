@@ -0,0 +1,92 @@
+package cn.trinea.android.view.autoscrollviewpager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.widget.FrameLayout;
+
+/**
+ * Phase slots of {@link AutoScrollScheduler}, checked through the due time of each pager
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19)
+public class AutoScrollSchedulerTest {
+
+    private static final long   PHASE_OFFSET = 1000;
+    private static final int    DELAY        = 500;
+
+    private AutoScrollScheduler scheduler;
+    private FrameLayout         root;
+    private AutoScrollViewPager first;
+    private AutoScrollViewPager second;
+
+    @Before
+    public void setUp() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        // nothing is ticked, the tests only look at due times
+        ShadowLooper.pauseMainLooper();
+        scheduler = AutoScrollScheduler.getInstance();
+        scheduler.setPhaseOffset(PHASE_OFFSET);
+        root = new FrameLayout(activity);
+        activity.setContentView(root);
+        first = newPager(activity);
+        second = newPager(activity);
+    }
+
+    @After
+    public void tearDown() {
+        first.setUseSharedScheduler(false);
+        second.setUseSharedScheduler(false);
+        scheduler.setPhaseOffset(AutoScrollScheduler.DEFAULT_PHASE_OFFSET);
+    }
+
+    @Test
+    public void laterPagerIsDelayedByItsPhase() {
+        first.startAutoScroll(DELAY);
+        second.startAutoScroll(DELAY);
+        long now = SystemClock.uptimeMillis();
+        long firstPhase = scheduler.getDueTime(first) - now - DELAY;
+        long secondPhase = scheduler.getDueTime(second) - now - DELAY;
+        assertEquals(0, firstPhase % PHASE_OFFSET);
+        assertEquals(0, secondPhase % PHASE_OFFSET);
+        assertTrue(secondPhase != firstPhase);
+    }
+
+    @Test
+    public void reattachedPagerIsNotDelayedAgain() {
+        first.startAutoScroll(DELAY);
+        second.startAutoScroll(DELAY);
+
+        root.removeView(second);
+        assertEquals(-1, scheduler.getDueTime(second));
+        root.addView(second);
+        // the delay left when it was detached, the phase was taken by its first scroll
+        assertEquals(SystemClock.uptimeMillis() + DELAY, scheduler.getDueTime(second));
+    }
+
+    @Test
+    public void restartedPagerIsNotDelayedAgain() {
+        second.startAutoScroll(DELAY);
+        second.stopAutoScroll();
+        second.startAutoScroll(DELAY);
+        assertEquals(SystemClock.uptimeMillis() + DELAY, scheduler.getDueTime(second));
+    }
+
+    private AutoScrollViewPager newPager(Activity activity) {
+        AutoScrollViewPager pager = new AutoScrollViewPager(activity);
+        pager.setUseSharedScheduler(true);
+        root.addView(pager);
+        return pager;
+    }
+}
@@ -0,0 +1,265 @@
+package cn.trinea.android.view.autoscrollviewpager.harness;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import org.robolectric.Robolectric;
+import org.robolectric.util.Scheduler;
+
+import android.app.Activity;
+import android.os.SystemClock;
+import android.support.v4.view.PagerAdapter;
+import android.support.v4.view.ViewPager;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import cn.trinea.android.view.autoscrollviewpager.AutoScrollViewPager;
+import cn.trinea.android.view.autoscrollviewpager.PagerMetrics;
+import cn.trinea.android.view.autoscrollviewpager.TransitionStats;
+
+/**
+ * Runs a {@link SessionScript} against an {@link AutoScrollViewPager} attached to a Robolectric activity. Time is
+ * Robolectric's virtual clock: the session jumps to the next posted message while the pager is idle, and steps one
+ * frame at a time, calling {@link View#computeScroll()}, while it scrolls.
+ */
+public class AutoScrollSession implements ViewPager.OnPageChangeListener,
+        AutoScrollViewPager.OnTransitionStatsListener {
+
+    public static final int         WIDTH            = 1080;
+    public static final int         HEIGHT           = 600;
+    /** virtual frame time in milliseconds **/
+    static final int                FRAME_TIME       = 16;
+    /** frames a swipe moves over, a fraction of the width each **/
+    private static final int        SWIPE_FRAMES     = 10;
+    /** frames an unfinished scroll may take before the session gives up on it **/
+    private static final int        MAX_SCROLL_FRAMES = 1000;
+
+    private final SessionScript     script;
+    private final SessionReport     report           = new SessionReport();
+    private final Scheduler         scheduler        = Robolectric.getForegroundThreadScheduler();
+    private AutoScrollViewPager     pager;
+    private CountingAdapter         adapter;
+    /** virtual time of the last auto advance, -1 after a swipe or refresh **/
+    private long                    lastAdvanceTime  = -1;
+    /** requested duration of the last auto scroll **/
+    private int                     lastDuration     = 0;
+    private boolean                 isScripted       = false;
+
+    public AutoScrollSession(SessionScript script) {
+        this.script = script;
+    }
+
+    public SessionReport run() {
+        Activity activity = Robolectric.buildActivity(Activity.class).create().start().resume().visible().get();
+        // messages only run as the session advances the clock, not from inside addView or removeView
+        scheduler.pause();
+        pager = new AutoScrollViewPager(activity);
+        pager.setLoopScroll(script.isLoopScroll());
+        pager.setOffscreenPageLimit(script.getOffscreenPageLimit());
+        pager.setOnPageChangeListener(this);
+        pager.setOnTransitionStatsListener(this, 1);
+        adapter = new CountingAdapter(script.getPageCount());
+        activity.setContentView(pager);
+        pager.setAdapter(adapter);
+        layout();
+
+        PagerMetrics.setEnabled(true);
+        PagerMetrics.reset();
+        adapter.resetCounts();
+        report.name = script.getName();
+        long startVirtualTime = scheduler.getCurrentTime();
+        long startWallTime = System.nanoTime();
+        long startAllocated = getAllocatedBytes();
+
+        pager.startAutoScroll();
+        int idleSteps = 0;
+        while (report.autoAdvances < script.getAutoAdvances()) {
+            int advances = report.autoAdvances;
+            if (!scheduler.advanceToNextPostedRunnable()) {
+                throw new IllegalStateException("auto scroll stopped after " + advances + " advances");
+            }
+            settle();
+            if (report.autoAdvances == advances) {
+                // invalidations and other messages in between
+                if (++idleSteps > MAX_SCROLL_FRAMES) {
+                    throw new IllegalStateException("no auto advance after " + advances + " advances");
+                }
+                continue;
+            }
+            idleSteps = 0;
+            if (script.getSwipeEvery() > 0 && report.autoAdvances % script.getSwipeEvery() == 0) {
+                swipe();
+            }
+            if (script.getRefreshEvery() > 0 && report.autoAdvances % script.getRefreshEvery() == 0) {
+                refresh();
+            }
+            report.maxAttachedPages = Math.max(report.maxAttachedPages, pager.getChildCount());
+        }
+        pager.stopAutoScroll();
+
+        long allocated = getAllocatedBytes();
+        report.allocatedBytes = startAllocated < 0 || allocated < 0 ? -1 : allocated - startAllocated;
+        report.wallTime = (System.nanoTime() - startWallTime) / 1000000;
+        report.virtualTime = scheduler.getCurrentTime() - startVirtualTime;
+        PagerMetrics.Snapshot snapshot = PagerMetrics.snapshot();
+        report.populateCount = snapshot.getCount(PagerMetrics.POPULATE);
+        report.populateTime = snapshot.getTime(PagerMetrics.POPULATE);
+        report.instantiateCount = adapter.instantiateCount;
+        report.destroyCount = adapter.destroyCount;
+        PagerMetrics.setEnabled(false);
+        return report;
+    }
+
+    private void layout() {
+        pager.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        pager.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    /**
+     * step frames until the pager is idle
+     */
+    private void settle() {
+        for (int i = 0; i < MAX_SCROLL_FRAMES && pager.getScrollState() != ViewPager.SCROLL_STATE_IDLE; i++) {
+            frame();
+        }
+    }
+
+    private void frame() {
+        scheduler.advanceBy(FRAME_TIME);
+        pager.computeScroll();
+        if (pager.isLayoutRequested()) {
+            layout();
+        }
+    }
+
+    /**
+     * drag more than half a page against the auto scroll direction and release
+     */
+    private void swipe() {
+        isScripted = true;
+        long downTime = SystemClock.uptimeMillis();
+        float x = WIDTH / 4f, y = HEIGHT / 2f;
+        float step = WIDTH * 0.6f / SWIPE_FRAMES;
+        dispatch(downTime, MotionEvent.ACTION_DOWN, x, y);
+        for (int i = 0; i < SWIPE_FRAMES; i++) {
+            frame();
+            x += step;
+            dispatch(downTime, MotionEvent.ACTION_MOVE, x, y);
+        }
+        dispatch(downTime, MotionEvent.ACTION_UP, x, y);
+        settle();
+        isScripted = false;
+        report.swipes++;
+        lastAdvanceTime = -1;
+    }
+
+    private void dispatch(long downTime, int action, float x, float y) {
+        MotionEvent event = MotionEvent.obtain(downTime, SystemClock.uptimeMillis(), action, x, y, 0);
+        pager.dispatchTouchEvent(event);
+        event.recycle();
+    }
+
+    /**
+     * add or remove the last page, in turn
+     */
+    private void refresh() {
+        isScripted = true;
+        adapter.count = adapter.count == script.getPageCount() ? script.getPageCount() + 1 : script.getPageCount();
+        adapter.notifyDataSetChanged();
+        layout();
+        isScripted = false;
+        report.refreshes++;
+        lastAdvanceTime = -1;
+    }
+
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void onPageSelected(int position) {
+        if (isScripted) {
+            return;
+        }
+        long now = scheduler.getCurrentTime();
+        if (lastAdvanceTime >= 0) {
+            report.addDrift(now - lastAdvanceTime - pager.getInterval() - lastDuration);
+        }
+        lastAdvanceTime = now;
+        report.autoAdvances++;
+    }
+
+    @Override
+    public void onPageScrolled(int position, float positionOffset, int positionOffsetPixels) {
+    }
+
+    @Override
+    public void onPageScrollStateChanged(int state) {
+    }
+
+    @Override
+    public void onTransitionStats(List<TransitionStats> stats) {
+        for (TransitionStats s : stats) {
+            if (s.isAutoScroll()) {
+                lastDuration = s.getRequestedDuration();
+            }
+        }
+    }
+
+    /**
+     * plain pages counting how often they are instantiated and destroyed
+     */
+    private static class CountingAdapter extends PagerAdapter {
+
+        int count;
+        int instantiateCount;
+        int destroyCount;
+
+        CountingAdapter(int count) {
+            this.count = count;
+        }
+
+        void resetCounts() {
+            instantiateCount = 0;
+            destroyCount = 0;
+        }
+
+        @Override
+        public int getCount() {
+            return count;
+        }
+
+        @Override
+        public Object instantiateItem(ViewGroup container, int position) {
+            instantiateCount++;
+            View page = new View(container.getContext());
+            container.addView(page);
+            return page;
+        }
+
+        @Override
+        public void destroyItem(ViewGroup container, int position, Object object) {
+            destroyCount++;
+            container.removeView((View)object);
+        }
+
+        @Override
+        public boolean isViewFromObject(View view, Object object) {
+            return view == object;
+        }
+
+        @Override
+        public int getItemPosition(Object object) {
+            return POSITION_NONE;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package cn.trinea.android.view.autoscrollviewpager.harness;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+/**
+ * Scripted auto scroll sessions, results are written to build/harness/sessions.json, or to the file named by the
+ * harness.output system property, as a JSON array for comparison between library versions
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 19)
+public class AutoScrollSessionTest {
+
+    /**
+     * an advance is only seen once the frame it falls in is stepped, so drift within one frame either way is expected,
+     * anything beyond is a scheduling delay, e.g. one that grows with the number of advances. Observed: 0.
+     **/
+    private static final long                MAX_DRIFT                    = AutoScrollSession.FRAME_TIME;
+    /** setCurrentItem, the scroll end and the layout after it each populate. Observed: 3.0 to 3.7 **/
+    private static final float               MAX_POPULATES_PER_ADVANCE    = 4;
+    /** one page comes into the window per advance, swipes and refreshes add a few. Observed: 1.0 to 1.14 **/
+    private static final float               MAX_INSTANTIATES_PER_ADVANCE = 1.25f;
+
+    private static final List<SessionReport> REPORTS                      = new ArrayList<SessionReport>();
+
+    @Test
+    public void loopWithSwipesAndRefreshes() {
+        run(new SessionScript("loop-10000-swipe7-refresh500", 5, 10000, 7, 500, true, 1));
+    }
+
+    @Test
+    public void loopWideWindow() {
+        run(new SessionScript("loop-10000-limit3", 5, 10000, 0, 0, true, 3));
+    }
+
+    @Test
+    public void cycleWithSwipesAndRefreshes() {
+        run(new SessionScript("cycle-10000-swipe7-refresh500", 5, 10000, 7, 500, false, 1));
+    }
+
+    private static void run(SessionScript script) {
+        SessionReport report = new AutoScrollSession(script).run();
+        REPORTS.add(report);
+        assertEquals(script.getAutoAdvances(), report.getAutoAdvances());
+        // every page destroyed was instantiated in the session or attached before it
+        assertTrue(report.toString(),
+                report.getDestroyCount() <= report.getInstantiateCount() + report.maxAttachedPages);
+        assertTrue("drift " + report, report.getMaxDrift() <= MAX_DRIFT);
+        assertTrue("populate churn " + report,
+                report.getPopulateCount() <= MAX_POPULATES_PER_ADVANCE * report.getAutoAdvances());
+        assertTrue("instantiate churn " + report,
+                report.getInstantiateCount() <= MAX_INSTANTIATES_PER_ADVANCE * report.getAutoAdvances());
+    }
+
+    @AfterClass
+    public static void writeReports() throws IOException {
+        String path = System.getProperty("harness.output", "build/harness/sessions.json");
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("[\n");
+            for (int i = 0; i < REPORTS.size(); i++) {
+                writer.write("  " + REPORTS.get(i).toJson() + (i < REPORTS.size() - 1 ? ",\n" : "\n"));
+            }
+            writer.write("]\n");
+        } finally {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package cn.trinea.android.view.autoscrollviewpager.harness;
+
+import java.util.Locale;
+
+/**
+ * Counts of one scripted session, written as one JSON object per session
+ * <ul>
+ * <li>populate calls, from {@link cn.trinea.android.view.autoscrollviewpager.PagerMetrics}</li>
+ * <li>instantiateItem and destroyItem calls, counted by the adapter of the session</li>
+ * <li>bytes allocated by the main thread while the session ran, where the JVM can tell, -1 otherwise. Object counts
+ * need an agent, bytes are what a version comparison needs.</li>
+ * <li>timing drift, in virtual milliseconds, of each auto advance against the one before it: the interval plus the
+ * duration of the previous scroll is expected. Advances right after a swipe or a refresh are not compared.</li>
+ * </ul>
+ */
+public class SessionReport {
+
+    String name;
+    int    autoAdvances;
+    int    swipes;
+    int    refreshes;
+    int    populateCount;
+    float  populateTime;
+    int    instantiateCount;
+    int    destroyCount;
+    int    maxAttachedPages;
+    long   allocatedBytes = -1;
+    int    driftSamples;
+    long   driftSum;
+    long   maxDrift;
+    long   virtualTime;
+    long   wallTime;
+
+    public String getName() {
+        return name;
+    }
+
+    public int getAutoAdvances() {
+        return autoAdvances;
+    }
+
+    public int getPopulateCount() {
+        return populateCount;
+    }
+
+    public int getInstantiateCount() {
+        return instantiateCount;
+    }
+
+    public int getDestroyCount() {
+        return destroyCount;
+    }
+
+    public long getMaxDrift() {
+        return maxDrift;
+    }
+
+    /**
+     * mean absolute drift in milliseconds, 0 if nothing was compared
+     */
+    public float getMeanDrift() {
+        return driftSamples == 0 ? 0 : (float)driftSum / driftSamples;
+    }
+
+    void addDrift(long drift) {
+        long absDrift = Math.abs(drift);
+        driftSamples++;
+        driftSum += absDrift;
+        maxDrift = Math.max(maxDrift, absDrift);
+    }
+
+    public String toJson() {
+        return String.format(Locale.US, "{\"name\":\"%s\",\"autoAdvances\":%d,\"swipes\":%d,\"refreshes\":%d,"
+                + "\"populateCount\":%d,\"populateTimeMs\":%.3f,\"instantiateItemCount\":%d,\"destroyItemCount\":%d,"
+                + "\"maxAttachedPages\":%d,\"allocatedBytes\":%d,\"driftSamples\":%d,\"meanDriftMs\":%.3f,"
+                + "\"maxDriftMs\":%d,\"virtualTimeMs\":%d,\"wallTimeMs\":%d}", name, autoAdvances, swipes, refreshes,
+                populateCount, populateTime, instantiateCount, destroyCount, maxAttachedPages, allocatedBytes,
+                driftSamples, getMeanDrift(), maxDrift, virtualTime, wallTime);
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+}
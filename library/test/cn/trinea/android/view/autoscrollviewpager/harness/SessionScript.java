@@ -0,0 +1,60 @@
+package cn.trinea.android.view.autoscrollviewpager.harness;
+
+/**
+ * What a scripted auto scroll session does, a tick is one auto advance
+ * <ul>
+ * <li>{@link #getAutoAdvances()} auto advances to run</li>
+ * <li>{@link #getSwipeEvery()} a swipe after every n-th auto advance, 0 for none</li>
+ * <li>{@link #getRefreshEvery()} a data set refresh after every n-th auto advance, 0 for none. Refreshes add and
+ * remove a page in turn and report every page as changed, so the window is rebuilt.</li>
+ * </ul>
+ */
+public class SessionScript {
+
+    private final String  name;
+    private final int     pageCount;
+    private final int     autoAdvances;
+    private final int     swipeEvery;
+    private final int     refreshEvery;
+    private final boolean isLoopScroll;
+    private final int     offscreenPageLimit;
+
+    public SessionScript(String name, int pageCount, int autoAdvances, int swipeEvery, int refreshEvery,
+            boolean isLoopScroll, int offscreenPageLimit) {
+        this.name = name;
+        this.pageCount = pageCount;
+        this.autoAdvances = autoAdvances;
+        this.swipeEvery = swipeEvery;
+        this.refreshEvery = refreshEvery;
+        this.isLoopScroll = isLoopScroll;
+        this.offscreenPageLimit = offscreenPageLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPageCount() {
+        return pageCount;
+    }
+
+    public int getAutoAdvances() {
+        return autoAdvances;
+    }
+
+    public int getSwipeEvery() {
+        return swipeEvery;
+    }
+
+    public int getRefreshEvery() {
+        return refreshEvery;
+    }
+
+    public boolean isLoopScroll() {
+        return isLoopScroll;
+    }
+
+    public int getOffscreenPageLimit() {
+        return offscreenPageLimit;
+    }
+}
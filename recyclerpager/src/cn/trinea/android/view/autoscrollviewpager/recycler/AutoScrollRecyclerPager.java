@@ -0,0 +1,650 @@
+package cn.trinea.android.view.autoscrollviewpager.recycler;
+
+import java.lang.ref.WeakReference;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Message;
+import android.support.v4.view.MotionEventCompat;
+import android.support.v4.view.ViewPager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.LinearSmoothScroller;
+import android.support.v7.widget.PagerSnapHelper;
+import android.support.v7.widget.RecyclerView;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+
+/**
+ * Auto scroll pager built on RecyclerView, an alternative to {@code AutoScrollViewPager} that needs no access to
+ * ViewPager internals
+ * <ul>
+ * <strong>Differences</strong>
+ * <li>pages are recycled by view type and prefetched by RecyclerView, the adapter is a {@link RecyclerView.Adapter}
+ * whose pages match the pager's size</li>
+ * <li>no reflection and no class in a support library package, so support library upgrades cannot break it</li>
+ * <li>in loop mode the adapter is wrapped in a {@link LoopRecyclerAdapter}</li>
+ * </ul>
+ * <ul>
+ * <strong>Same settings as {@code AutoScrollViewPager}</strong>
+ * <li>{@link #startAutoScroll()}, {@link #startAutoScroll(int)}, {@link #stopAutoScroll()}</li>
+ * <li>{@link #setInterval(long)}, {@link #setDirection(int)}, {@link #setCycle(boolean)},
+ * {@link #setSlideBorderMode(int)}, {@link #setBorderAnimation(boolean)}, {@link #setStopScrollWhenTouch(boolean)}
+ * </li>
+ * <li>{@link #setAutoScrollDurationFactor(double)}, {@link #setSwipeScrollDurationFactor(double)}</li>
+ * <li>{@link #setCurrentItem(int, boolean)}, {@link #getCurrentItem()}, {@link #setLoopScroll(boolean)},
+ * {@link #setOffscreenPageLimit(int)}, {@link #setOnPageChangeListener(ViewPager.OnPageChangeListener)}</li>
+ * </ul>
+ */
+public class AutoScrollRecyclerPager extends RecyclerView {
+
+    public static final int               DEFAULT_INTERVAL            = 1500;
+
+    public static final int               LEFT                        = 0;
+    public static final int               RIGHT                       = 1;
+
+    /** do nothing when sliding at the last or first item **/
+    public static final int               SLIDE_BORDER_MODE_NONE      = 0;
+    /** cycle when sliding at the last or first item **/
+    public static final int               SLIDE_BORDER_MODE_CYCLE     = 1;
+    /** deliver event to parent when sliding at the last or first item **/
+    public static final int               SLIDE_BORDER_MODE_TO_PARENT = 2;
+
+    public static final int               SCROLL_WHAT                 = 0;
+
+    /** auto scroll time in milliseconds, default is {@link #DEFAULT_INTERVAL} **/
+    private long                          interval                    = DEFAULT_INTERVAL;
+    /** auto scroll direction, default is {@link #RIGHT} **/
+    private int                           direction                   = RIGHT;
+    /** whether automatic cycle when auto scroll reaching the last or first item, default is true **/
+    private boolean                       isCycle                     = true;
+    /** whether stop auto scroll when touching, default is true **/
+    private boolean                       stopScrollWhenTouch         = true;
+    /** how to process when sliding at the last or first item, default is {@link #SLIDE_BORDER_MODE_NONE} **/
+    private int                           slideBorderMode             = SLIDE_BORDER_MODE_NONE;
+    /** whether animating when auto scroll at the last or first item **/
+    private boolean                       isBorderAnimation           = true;
+    /** scroll factor for auto scroll animation, default is 1.0 **/
+    private double                        autoScrollFactor            = 1.0;
+    /** scroll factor for swipe scroll animation, default is 1.0 **/
+    private double                        swipeScrollFactor           = 1.0;
+    /** whether the adapter is repeated endlessly, default is true **/
+    private boolean                       isLoopScroll                = true;
+
+    private Handler                       handler;
+    private boolean                       isAutoScroll                = false;
+    private boolean                       isStopByTouch               = false;
+    private float                         touchX                      = 0f, downX = 0f;
+    /** current item when the gesture went down **/
+    private int                           gestureItem                 = 0;
+    /** whether {@link #SLIDE_BORDER_MODE_CYCLE} already jumped in this gesture **/
+    private boolean                       isGestureBorderCycled       = false;
+    /** last value requested from the parent in this gesture **/
+    private boolean                       isParentInterceptDisallowed = false;
+    /** whether the scroll being started comes from {@link #onAutoScrollDue()} **/
+    private boolean                       isAutoScrolling             = false;
+
+    private LinearLayoutManager           layoutManager;
+    private PageSnapHelper                snapHelper;
+    /** adapter set by the user, wrapped in {@link #loopAdapter} in loop mode **/
+    private RecyclerView.Adapter<?>       actualAdapter;
+    private LoopRecyclerAdapter<?>        loopAdapter;
+    private AdapterDataObserver           actualAdapterObserver;
+    /** selected position of the adapter set on RecyclerView, virtual in loop mode **/
+    private int                           currentItem                 = 0;
+    /** real count {@link #currentItem} was mapped with, in loop mode **/
+    private int                           knownRealCount              = 0;
+    private ViewPager.OnPageChangeListener onPageChangeListener;
+
+    public AutoScrollRecyclerPager(Context paramContext) {
+        super(paramContext);
+        init();
+    }
+
+    public AutoScrollRecyclerPager(Context paramContext, AttributeSet paramAttributeSet) {
+        super(paramContext, paramAttributeSet);
+        init();
+    }
+
+    private void init() {
+        handler = new MyHandler(this);
+        layoutManager = new LinearLayoutManager(getContext(), LinearLayoutManager.HORIZONTAL, false);
+        setLayoutManager(layoutManager);
+        snapHelper = new PageSnapHelper();
+        snapHelper.attachToRecyclerView(this);
+        setOffscreenPageLimit(1);
+        addOnScrollListener(new PageScrollListener());
+        actualAdapterObserver = new AdapterDataObserver() {
+
+            @Override
+            public void onChanged() {
+                onActualDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                onActualDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                onActualDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                onActualDataSetChanged();
+            }
+        };
+    }
+
+    /**
+     * start auto scroll, first scroll delay time is {@link #getInterval()}
+     */
+    public void startAutoScroll() {
+        isAutoScroll = true;
+        sendScrollMessage(interval + getPageDuration(autoScrollFactor));
+    }
+
+    /**
+     * start auto scroll
+     *
+     * @param delayTimeInMills first scroll delay time
+     */
+    public void startAutoScroll(int delayTimeInMills) {
+        isAutoScroll = true;
+        sendScrollMessage(delayTimeInMills);
+    }
+
+    /**
+     * stop auto scroll
+     */
+    public void stopAutoScroll() {
+        isAutoScroll = false;
+        handler.removeMessages(SCROLL_WHAT);
+    }
+
+    /**
+     * set the factor by which the duration of sliding animation will change while swiping
+     */
+    public void setSwipeScrollDurationFactor(double scrollFactor) {
+        swipeScrollFactor = scrollFactor;
+    }
+
+    /**
+     * set the factor by which the duration of sliding animation will change while auto scrolling
+     */
+    public void setAutoScrollDurationFactor(double scrollFactor) {
+        autoScrollFactor = scrollFactor;
+    }
+
+    private void sendScrollMessage(long delayTimeInMills) {
+        /** remove messages before, keeps one message is running at most **/
+        handler.removeMessages(SCROLL_WHAT);
+        handler.sendEmptyMessageDelayed(SCROLL_WHAT, delayTimeInMills);
+    }
+
+    /**
+     * auto scroll once and schedule the next one, called by {@link MyHandler}
+     */
+    void onAutoScrollDue() {
+        isAutoScrolling = true;
+        try {
+            scrollOnce();
+        } finally {
+            // an adapter or listener throwing must not leave swipes with the auto scroll duration
+            isAutoScrolling = false;
+        }
+        sendScrollMessage(interval + getPageDuration(autoScrollFactor));
+    }
+
+    /**
+     * scroll only once
+     */
+    public void scrollOnce() {
+        int totalCount;
+        if (getAdapter() == null || (totalCount = getAdapter().getItemCount()) <= 1) {
+            return;
+        }
+
+        int nextItem = (direction == LEFT) ? currentItem - 1 : currentItem + 1;
+        if (nextItem < 0) {
+            if (isCycle) {
+                setVirtualItem(totalCount - 1, isBorderAnimation);
+            }
+        } else if (nextItem == totalCount) {
+            if (isCycle) {
+                setVirtualItem(0, isBorderAnimation);
+            }
+        } else {
+            setVirtualItem(nextItem, true);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        // a detached pager is not referenced from the message queue
+        handler.removeMessages(SCROLL_WHAT);
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (isAutoScroll) {
+            sendScrollMessage(interval);
+        }
+    }
+
+    /**
+     * <ul>
+     * if stopScrollWhenTouch is true
+     * <li>if event is down, stop auto scroll.</li>
+     * <li>if event is up or cancel, start auto scroll again.</li>
+     * </ul>
+     */
+    @Override
+    public boolean dispatchTouchEvent(MotionEvent ev) {
+        int action = MotionEventCompat.getActionMasked(ev);
+
+        if (action == MotionEvent.ACTION_DOWN) {
+            downX = ev.getX();
+            gestureItem = currentItem;
+            isGestureBorderCycled = false;
+            // ancestors clear their disallow intercept flag on every down
+            isParentInterceptDisallowed = false;
+        }
+
+        if (stopScrollWhenTouch) {
+            if ((action == MotionEvent.ACTION_DOWN) && isAutoScroll) {
+                isStopByTouch = true;
+                stopAutoScroll();
+            } else if ((action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) && isStopByTouch) {
+                startAutoScroll();
+            }
+        }
+
+        boolean disallowIntercept = true;
+        int pageCount = getAdapter() == null ? 0 : getAdapter().getItemCount();
+        if (slideBorderMode == SLIDE_BORDER_MODE_TO_PARENT || slideBorderMode == SLIDE_BORDER_MODE_CYCLE) {
+            touchX = ev.getX();
+            /**
+             * current index is first one and slide to right or current index is last one and slide to left.<br/>
+             * if slide border mode is to parent, then requestDisallowInterceptTouchEvent false.<br/>
+             * else scroll to last one when current item is first one, scroll to first one when current item is last
+             * one, once per gesture.
+             */
+            if ((gestureItem == 0 && downX <= touchX) || (gestureItem == pageCount - 1 && downX >= touchX)) {
+                if (slideBorderMode == SLIDE_BORDER_MODE_TO_PARENT) {
+                    disallowIntercept = false;
+                } else if (!isGestureBorderCycled && pageCount > 1) {
+                    isGestureBorderCycled = true;
+                    setVirtualItem(pageCount - gestureItem - 1, isBorderAnimation);
+                    gestureItem = currentItem;
+                }
+            }
+        }
+        if (disallowIntercept != isParentInterceptDisallowed && getParent() != null) {
+            isParentInterceptDisallowed = disallowIntercept;
+            getParent().requestDisallowInterceptTouchEvent(disallowIntercept);
+        }
+        return super.dispatchTouchEvent(ev);
+    }
+
+    /**
+     * set the adapter supplying pages, wrapped in a {@link LoopRecyclerAdapter} in loop mode. Its pages should match
+     * the size of the pager.
+     */
+    @Override
+    public void setAdapter(Adapter adapter) {
+        if (actualAdapter != null && loopAdapter != null) {
+            actualAdapter.unregisterAdapterDataObserver(actualAdapterObserver);
+        }
+        actualAdapter = adapter;
+        if (isLoopScroll && adapter != null) {
+            @SuppressWarnings("unchecked")
+            LoopRecyclerAdapter<?> wrapper = new LoopRecyclerAdapter<ViewHolder>(adapter);
+            loopAdapter = wrapper;
+            // the virtual count follows the real one, the pager has to move back into its range
+            adapter.registerAdapterDataObserver(actualAdapterObserver);
+            super.setAdapter(wrapper);
+            currentItem = wrapper.getCenterPosition();
+            knownRealCount = wrapper.getRealCount();
+        } else {
+            loopAdapter = null;
+            super.setAdapter(adapter);
+            currentItem = 0;
+        }
+        layoutManager.scrollToPosition(currentItem);
+    }
+
+    /**
+     * get the adapter set by {@link #setAdapter(Adapter)}, not the loop wrapper
+     */
+    public Adapter getOriginalAdapter() {
+        return actualAdapter;
+    }
+
+    private void onActualDataSetChanged() {
+        // currentItem was mapped with the old count, the new one would pick an unrelated real item
+        int realCount = loopAdapter.getRealCount();
+        int realItem = LoopPositions.keepRealPosition(currentItem, knownRealCount, realCount);
+        knownRealCount = realCount;
+        if (realItem < 0) {
+            return;
+        }
+        currentItem = loopAdapter.getCenterPosition() + realItem;
+        layoutManager.scrollToPosition(currentItem);
+    }
+
+    public boolean isLoopScroll() {
+        return isLoopScroll;
+    }
+
+    /**
+     * set whether the adapter is repeated endlessly, default is true
+     *
+     * @param loopScroll
+     */
+    public void setLoopScroll(boolean loopScroll) {
+        if (isLoopScroll == loopScroll) {
+            return;
+        }
+        isLoopScroll = loopScroll;
+        if (actualAdapter != null) {
+            int realItem = getCurrentItem();
+            setAdapter(actualAdapter);
+            setCurrentItem(realItem, false);
+        }
+    }
+
+    /**
+     * set how many pages on each side of the current one are kept bound in RecyclerView's view cache, default is 1
+     *
+     * @param limit at least 1
+     */
+    public void setOffscreenPageLimit(int limit) {
+        setItemViewCacheSize(2 * Math.max(1, limit));
+    }
+
+    /**
+     * get the real position of the current page
+     */
+    public int getCurrentItem() {
+        return loopAdapter == null ? currentItem : loopAdapter.toRealPosition(currentItem);
+    }
+
+    /**
+     * set the current page, smoothly scrolled to
+     *
+     * @param item real position
+     */
+    public void setCurrentItem(int item) {
+        setCurrentItem(item, true);
+    }
+
+    /**
+     * set the current page
+     *
+     * @param item real position
+     * @param smoothScroll
+     */
+    public void setCurrentItem(int item, boolean smoothScroll) {
+        if (loopAdapter != null) {
+            // the copy of item in the cycle of the current page
+            item = currentItem - loopAdapter.toRealPosition(currentItem) + item;
+        }
+        setVirtualItem(item, smoothScroll);
+    }
+
+    private void setVirtualItem(int item, boolean smoothScroll) {
+        Adapter adapter = getAdapter();
+        if (adapter == null || item < 0 || item >= adapter.getItemCount()) {
+            return;
+        }
+        if (smoothScroll) {
+            PageScroller scroller = new PageScroller(getContext(), isAutoScrolling ? autoScrollFactor
+                    : swipeScrollFactor);
+            scroller.setTargetPosition(item);
+            layoutManager.startSmoothScroll(scroller);
+        } else {
+            stopScroll();
+            layoutManager.scrollToPosition(item);
+        }
+        dispatchSelected(item);
+    }
+
+    private void dispatchSelected(int item) {
+        if (item == currentItem) {
+            return;
+        }
+        currentItem = item;
+        if (onPageChangeListener != null) {
+            onPageChangeListener.onPageSelected(getCurrentItem());
+        }
+    }
+
+    /**
+     * set the listener of page changes, positions are real positions
+     *
+     * @param listener
+     */
+    public void setOnPageChangeListener(ViewPager.OnPageChangeListener listener) {
+        this.onPageChangeListener = listener;
+    }
+
+    /**
+     * duration of a one page scroll with factor, in milliseconds
+     */
+    private int getPageDuration(double factor) {
+        return new PageScroller(getContext(), factor).getDuration(getWidth());
+    }
+
+    /**
+     * get auto scroll time in milliseconds, default is {@link #DEFAULT_INTERVAL}
+     *
+     * @return the interval
+     */
+    public long getInterval() {
+        return interval;
+    }
+
+    /**
+     * set auto scroll time in milliseconds, default is {@link #DEFAULT_INTERVAL}
+     *
+     * @param interval the interval to set
+     */
+    public void setInterval(long interval) {
+        this.interval = interval;
+    }
+
+    /**
+     * get auto scroll direction
+     *
+     * @return {@link #LEFT} or {@link #RIGHT}, default is {@link #RIGHT}
+     */
+    public int getDirection() {
+        return (direction == LEFT) ? LEFT : RIGHT;
+    }
+
+    /**
+     * set auto scroll direction
+     *
+     * @param direction {@link #LEFT} or {@link #RIGHT}, default is {@link #RIGHT}
+     */
+    public void setDirection(int direction) {
+        this.direction = direction;
+    }
+
+    /**
+     * whether automatic cycle when auto scroll reaching the last or first item, default is true
+     *
+     * @return the isCycle
+     */
+    public boolean isCycle() {
+        return isCycle;
+    }
+
+    /**
+     * set whether automatic cycle when auto scroll reaching the last or first item, default is true
+     *
+     * @param isCycle the isCycle to set
+     */
+    public void setCycle(boolean isCycle) {
+        this.isCycle = isCycle;
+    }
+
+    /**
+     * whether stop auto scroll when touching, default is true
+     *
+     * @return the stopScrollWhenTouch
+     */
+    public boolean isStopScrollWhenTouch() {
+        return stopScrollWhenTouch;
+    }
+
+    /**
+     * set whether stop auto scroll when touching, default is true
+     *
+     * @param stopScrollWhenTouch
+     */
+    public void setStopScrollWhenTouch(boolean stopScrollWhenTouch) {
+        this.stopScrollWhenTouch = stopScrollWhenTouch;
+    }
+
+    /**
+     * get how to process when sliding at the last or first item
+     *
+     * @return the slideBorderMode {@link #SLIDE_BORDER_MODE_NONE}, {@link #SLIDE_BORDER_MODE_TO_PARENT},
+     *         {@link #SLIDE_BORDER_MODE_CYCLE}, default is {@link #SLIDE_BORDER_MODE_NONE}
+     */
+    public int getSlideBorderMode() {
+        return slideBorderMode;
+    }
+
+    /**
+     * set how to process when sliding at the last or first item
+     *
+     * @param slideBorderMode {@link #SLIDE_BORDER_MODE_NONE}, {@link #SLIDE_BORDER_MODE_TO_PARENT},
+     *        {@link #SLIDE_BORDER_MODE_CYCLE}, default is {@link #SLIDE_BORDER_MODE_NONE}
+     */
+    public void setSlideBorderMode(int slideBorderMode) {
+        this.slideBorderMode = slideBorderMode;
+    }
+
+    /**
+     * whether animating when auto scroll at the last or first item, default is true
+     *
+     * @return
+     */
+    public boolean isBorderAnimation() {
+        return isBorderAnimation;
+    }
+
+    /**
+     * set whether animating when auto scroll at the last or first item, default is true
+     *
+     * @param isBorderAnimation
+     */
+    public void setBorderAnimation(boolean isBorderAnimation) {
+        this.isBorderAnimation = isBorderAnimation;
+    }
+
+    /**
+     * scrolls to a page with its start aligned to the pager, its duration scaled by a factor
+     */
+    private static class PageScroller extends LinearSmoothScroller {
+
+        private final double factor;
+
+        PageScroller(Context context, double factor) {
+            super(context);
+            this.factor = factor;
+        }
+
+        @Override
+        protected int getHorizontalSnapPreference() {
+            return SNAP_TO_START;
+        }
+
+        @Override
+        protected int calculateTimeForScrolling(int dx) {
+            return (int)Math.ceil(super.calculateTimeForScrolling(dx) * factor);
+        }
+
+        int getDuration(int distance) {
+            return calculateTimeForDeceleration(distance);
+        }
+    }
+
+    /**
+     * snaps flings to one page, settling with the swipe duration factor
+     */
+    private class PageSnapHelper extends PagerSnapHelper {
+
+        @Override
+        protected LinearSmoothScroller createSnapScroller(LayoutManager layoutManager) {
+            return new PageScroller(getContext(), swipeScrollFactor);
+        }
+    }
+
+    /**
+     * reports page changes in ViewPager's terms, scroll states have the same values
+     */
+    private class PageScrollListener extends OnScrollListener {
+
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            if (newState == SCROLL_STATE_IDLE) {
+                View snapView = snapHelper.findSnapView(layoutManager);
+                if (snapView != null) {
+                    dispatchSelected(layoutManager.getPosition(snapView));
+                }
+            }
+            if (onPageChangeListener != null) {
+                onPageChangeListener.onPageScrollStateChanged(newState);
+            }
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            if (onPageChangeListener == null) {
+                return;
+            }
+            int position = layoutManager.findFirstVisibleItemPosition();
+            View page = layoutManager.findViewByPosition(position);
+            if (page == null || page.getWidth() == 0) {
+                return;
+            }
+            int offsetPixels = -page.getLeft();
+            int realPosition = loopAdapter == null ? position : loopAdapter.toRealPosition(position);
+            onPageChangeListener.onPageScrolled(realPosition, (float)offsetPixels / page.getWidth(), offsetPixels);
+        }
+    }
+
+    private static class MyHandler extends Handler {
+
+        private final WeakReference<AutoScrollRecyclerPager> pager;
+
+        public MyHandler(AutoScrollRecyclerPager pager) {
+            this.pager = new WeakReference<AutoScrollRecyclerPager>(pager);
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            super.handleMessage(msg);
+
+            switch (msg.what) {
+                case SCROLL_WHAT:
+                    AutoScrollRecyclerPager recyclerPager = pager.get();
+                    if (recyclerPager != null) {
+                        recyclerPager.onAutoScrollDue();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+}
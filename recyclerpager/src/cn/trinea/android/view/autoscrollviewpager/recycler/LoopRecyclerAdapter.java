@@ -0,0 +1,148 @@
+package cn.trinea.android.view.autoscrollviewpager.recycler;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+import cn.trinea.android.view.autoscrollviewpager.core.LoopPositions;
+
+/**
+ * Repeats the items of a wrapped adapter for {@link AutoScrollRecyclerPager} in loop mode
+ * <ul>
+ * <li>RecyclerView lays out a window of views and keeps no state per position, so the virtual range can be huge and
+ * the pager never has to move back to the centre</li>
+ * <li>view types are forwarded, pages are recycled and prefetched by type as with the wrapped adapter</li>
+ * <li>stable ids are not forwarded, two copies of one item may be attached at the same time</li>
+ * <li>any change of the wrapped adapter is a full change of this one, every virtual position may have moved</li>
+ * </ul>
+ */
+public class LoopRecyclerAdapter<VH extends RecyclerView.ViewHolder> extends RecyclerView.Adapter<VH> {
+
+    /** upper bound of the virtual range **/
+    private static final int               MAX_VIRTUAL_COUNT = Integer.MAX_VALUE / 2;
+
+    private final RecyclerView.Adapter<VH> adapter;
+    /** registered on the wrapped adapter only while this one is observed, so a dropped wrapper is not kept alive **/
+    private final RecyclerView.AdapterDataObserver forwardingObserver;
+    private int                            observerCount     = 0;
+
+    public LoopRecyclerAdapter(RecyclerView.Adapter<VH> adapter) {
+        this.adapter = adapter;
+        forwardingObserver = new RecyclerView.AdapterDataObserver() {
+
+            @Override
+            public void onChanged() {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeChanged(int positionStart, int itemCount) {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeInserted(int positionStart, int itemCount) {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeRemoved(int positionStart, int itemCount) {
+                notifyDataSetChanged();
+            }
+
+            @Override
+            public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+                notifyDataSetChanged();
+            }
+        };
+    }
+
+    @Override
+    public void registerAdapterDataObserver(RecyclerView.AdapterDataObserver observer) {
+        super.registerAdapterDataObserver(observer);
+        if (observerCount++ == 0) {
+            adapter.registerAdapterDataObserver(forwardingObserver);
+        }
+    }
+
+    @Override
+    public void unregisterAdapterDataObserver(RecyclerView.AdapterDataObserver observer) {
+        super.unregisterAdapterDataObserver(observer);
+        if (--observerCount == 0) {
+            adapter.unregisterAdapterDataObserver(forwardingObserver);
+        }
+    }
+
+    public RecyclerView.Adapter<VH> getOriginalAdapter() {
+        return adapter;
+    }
+
+    /**
+     * @return the {@link #getItemCount()} result of the wrapped adapter
+     */
+    public int getRealCount() {
+        return adapter.getItemCount();
+    }
+
+    /**
+     * @return the position of the wrapped adapter for a position of this adapter
+     */
+    public int toRealPosition(int position) {
+        return LoopPositions.toRealPosition(position, getRealCount());
+    }
+
+    /**
+     * @return the position of this adapter showing real position 0 in the middle of {@link #getItemCount()}
+     */
+    public int getCenterPosition() {
+        return LoopPositions.centerPosition(getItemCount(), getRealCount());
+    }
+
+    @Override
+    public int getItemCount() {
+        return LoopPositions.wholeCycles(getRealCount(), MAX_VIRTUAL_COUNT);
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return adapter.getItemViewType(toRealPosition(position));
+    }
+
+    @Override
+    public VH onCreateViewHolder(ViewGroup parent, int viewType) {
+        return adapter.onCreateViewHolder(parent, viewType);
+    }
+
+    @Override
+    public void onBindViewHolder(VH holder, int position) {
+        adapter.onBindViewHolder(holder, toRealPosition(position));
+    }
+
+    @Override
+    public void onViewRecycled(VH holder) {
+        adapter.onViewRecycled(holder);
+    }
+
+    @Override
+    public boolean onFailedToRecycleView(VH holder) {
+        return adapter.onFailedToRecycleView(holder);
+    }
+
+    @Override
+    public void onViewAttachedToWindow(VH holder) {
+        adapter.onViewAttachedToWindow(holder);
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(VH holder) {
+        adapter.onViewDetachedFromWindow(holder);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        adapter.onAttachedToRecyclerView(recyclerView);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        adapter.onDetachedFromRecyclerView(recyclerView);
+    }
+}